@@ -0,0 +1,94 @@
+package org.graph4j.iso;
+
+import org.graph4j.Graph;
+import org.graph4j.iso.general.SearchStatus;
+
+import java.util.Optional;
+
+/**
+ * The result of matching a pattern against one target, computed by a {@link BatchMatcher}.
+ *
+ * <p>
+ *     A target that was rejected by the invariants of the prepared graphs(see {@link #isFiltered()}) was not searched:
+ *     it surely does not match. If the search was stopped by the budget, a missing mapping means
+ *     that the answer is unknown(see {@link #getStatus()}).
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public class BatchMatchResult {
+    private final int patternIndex;
+    private final int targetIndex;
+    private final Graph<?,?> pattern;
+    private final Graph<?,?> target;
+    private final IsomorphicGraphMapping mapping;    // null if no mapping was found
+    private final SearchStatus status;
+    private final boolean filtered;
+
+    BatchMatchResult(int patternIndex, int targetIndex, Graph<?,?> pattern, Graph<?,?> target,
+                     IsomorphicGraphMapping mapping, SearchStatus status, boolean filtered) {
+        this.patternIndex = patternIndex;
+        this.targetIndex = targetIndex;
+        this.pattern = pattern;
+        this.target = target;
+        this.mapping = mapping;
+        this.status = status;
+        this.filtered = filtered;
+    }
+
+    /**
+     * @return the position of the pattern in the collection of patterns(0 if there was a single pattern)
+     */
+    public int getPatternIndex() {
+        return patternIndex;
+    }
+
+    /**
+     * @return the position of the target in the collection of targets
+     */
+    public int getTargetIndex() {
+        return targetIndex;
+    }
+
+    public Graph<?,?> getPattern() {
+        return pattern;
+    }
+
+    public Graph<?,?> getTarget() {
+        return target;
+    }
+
+    /**
+     * @return true if a mapping from the pattern to the target was found
+     */
+    public boolean isMatch() {
+        return mapping != null;
+    }
+
+    /**
+     * @return the first mapping from the pattern to the target, if one was found
+     */
+    public Optional<IsomorphicGraphMapping> getMapping() {
+        return Optional.ofNullable(mapping);
+    }
+
+    /**
+     * @return how the search ended(COMPLETED for the targets rejected by the invariants)
+     */
+    public SearchStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return true if the target was rejected by the invariants, without a search
+     */
+    public boolean isFiltered() {
+        return filtered;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchMatchResult{pattern=" + patternIndex + ", target=" + targetIndex + ", match=" + isMatch() +
+                ", status=" + status + ", filtered=" + filtered + "}";
+    }
+}
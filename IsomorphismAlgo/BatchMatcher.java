@@ -0,0 +1,408 @@
+package org.graph4j.iso;
+
+import org.graph4j.Graph;
+import org.graph4j.iso.general.CacheMode;
+import org.graph4j.iso.general.MatchingSemantics;
+import org.graph4j.iso.general.PreparedGraph;
+import org.graph4j.iso.general.SearchBudget;
+import org.graph4j.iso.general.SearchResult;
+import org.graph4j.iso.general.SearchStatus;
+import org.graph4j.iso.general.VF2SubGraphIsomorphism;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Matches one pattern against many target graphs(one-vs-many), or every pattern of a collection against every
+ * target of another collection(many-vs-many), in parallel.
+ *
+ * <p>
+ *     Every graph is prepared only once(see {@link PreparedGraph}): the pattern when the batch starts, every target
+ *     in the task that matches it. The targets whose invariants do not match the pattern are rejected without a search,
+ *     the others are searched with {@link VF2SubGraphIsomorphism}, for the first mapping, with the given semantics
+ *     (EXACT for the isomorphic targets, INDUCED or MONOMORPHISM for the targets that contain the pattern).
+ * </p>
+ *
+ * <p>
+ *     The results are streamed back in the order in which the searches complete(not in the order of the targets).
+ *     At most {@code 2 * parallelism} searches are submitted and not yet consumed, so the targets are read lazily
+ *     and a slow consumer does not make the results pile up in memory. Closing the stream(e.g. with
+ *     try-with-resources) cancels the pending searches, so a stream that is not consumed to the end should be closed.
+ * </p>
+ *
+ * <p>
+ *     Example: {@code try (Stream<BatchMatchResult> results = matcher.match(pattern, targets)) {
+ *     results.filter(BatchMatchResult::isMatch).forEach(...); }}
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public class BatchMatcher implements AutoCloseable {
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    private final MatchingSemantics semantics;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;     // the executor is shut down by close() only if it was created here
+    private final int window;               // the maximum number of searches submitted and not yet consumed
+    private CacheMode cacheMode = CacheMode.SPARSE;
+    private SearchBudget budget = SearchBudget.unlimited();
+
+    /**
+     * Runs the searches on a new pool with {@code parallelism} threads, which is shut down by {@link #close()}.
+     * @param semantics how the pattern must occur in the targets
+     * @param parallelism the number of searches that run at the same time
+     * @throws NullPointerException if the semantics is null
+     * @throws IllegalArgumentException if parallelism is not positive
+     */
+    public BatchMatcher(MatchingSemantics semantics, int parallelism) {
+        this(semantics, newPool(parallelism), parallelism, true);
+    }
+
+    /**
+     * Uses one thread for every available processor.
+     */
+    public BatchMatcher(MatchingSemantics semantics) {
+        this(semantics, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Runs the searches on the given executor, which is not shut down by {@link #close()}.
+     * @param semantics how the pattern must occur in the targets
+     * @param executor the executor that runs the searches
+     * @param parallelism the number of searches that are submitted to the executor at the same time
+     * @throws NullPointerException if the semantics or the executor is null
+     * @throws IllegalArgumentException if parallelism is not positive
+     */
+    public BatchMatcher(MatchingSemantics semantics, ExecutorService executor, int parallelism) {
+        this(semantics, executor, parallelism, false);
+    }
+
+    private BatchMatcher(MatchingSemantics semantics, ExecutorService executor, int parallelism, boolean ownsExecutor) {
+        if (semantics == null)
+            throw new NullPointerException("Matching semantics cannot be null");
+        if (executor == null)
+            throw new NullPointerException("Executor cannot be null");
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be positive");
+
+        this.semantics = semantics;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.window = 2 * parallelism;
+    }
+
+    private static ExecutorService newPool(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be positive");
+
+        // daemon threads, so a matcher that is not closed does not keep the application alive
+        String prefix = "batch-matcher-" + POOL_NUMBER.incrementAndGet() + "-";
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, prefix + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @param cacheMode how the prepared graphs cache the adjacency relations(SPARSE by default)
+     * @throws NullPointerException if the cache mode is null
+     */
+    public void setCacheMode(CacheMode cacheMode) {
+        if (cacheMode == null)
+            throw new NullPointerException("Cache mode cannot be null");
+        this.cacheMode = cacheMode;
+    }
+
+    /**
+     * @param budget the limits of the search for every target(unlimited by default)
+     * @throws NullPointerException if the budget is null
+     */
+    public void setBudget(SearchBudget budget) {
+        if (budget == null)
+            throw new NullPointerException("Budget cannot be null");
+        this.budget = budget;
+    }
+
+    public MatchingSemantics getSemantics() {
+        return semantics;
+    }
+
+    /**
+     * Matches the pattern against every target. There is one result for every target, including the targets
+     * rejected by the invariants.
+     * @param pattern the pattern, prepared once for all the targets
+     * @param targets the targets, read lazily(e.g. they can be loaded from a file while the stream is consumed)
+     * @return the results, in the order in which the searches complete
+     * @throws NullPointerException if the pattern or the targets are null
+     */
+    public Stream<BatchMatchResult> match(Graph pattern, Iterable<? extends Graph> targets) {
+        if (pattern == null)
+            throw new NullPointerException("Pattern cannot be null");
+        return match(new PreparedGraph(pattern, cacheMode), targets);
+    }
+
+    /**
+     * Matches an already prepared pattern against every target(e.g. the same pattern against several collections).
+     * @see #match(Graph, Iterable)
+     */
+    public Stream<BatchMatchResult> match(PreparedGraph pattern, Iterable<? extends Graph> targets) {
+        if (pattern == null)
+            throw new NullPointerException("Pattern cannot be null");
+        if (targets == null)
+            throw new NullPointerException("Targets cannot be null");
+
+        Iterator<? extends Graph> it = targets.iterator();
+        Iterator<Callable<BatchMatchResult>> tasks = new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Callable<BatchMatchResult> next() {
+                Graph target = it.next();
+                if (target == null)
+                    throw new NullPointerException("Target cannot be null");
+
+                int targetIndex = index++;
+                return () -> search(0, targetIndex, pattern, new PreparedGraph(target, cacheMode));
+            }
+        };
+        return stream(tasks);
+    }
+
+    /**
+     * Matches every pattern against every target.
+     *
+     * <p>
+     *     All the graphs are prepared(in parallel) before the method returns, then only the pairs that pass
+     *     the invariants are searched and reported: a missing pair surely does not match. For the EXACT semantics,
+     *     the targets are grouped by their degree sequence, so the pairs that cannot match are not even enumerated.
+     * </p>
+     *
+     * @param patterns the patterns
+     * @param targets the targets
+     * @return the results of the searched pairs, in the order in which the searches complete
+     * @throws NullPointerException if the collections or some of their graphs are null
+     */
+    public Stream<BatchMatchResult> matchAll(List<? extends Graph> patterns, List<? extends Graph> targets) {
+        if (patterns == null)
+            throw new NullPointerException("Patterns cannot be null");
+        if (targets == null)
+            throw new NullPointerException("Targets cannot be null");
+
+        List<PreparedGraph> preparedPatterns = prepareAll(patterns);
+        List<PreparedGraph> preparedTargets = prepareAll(targets);
+
+        // EXACT: only the targets with the same degree sequence hash can be isomorphic to a pattern
+        Map<Integer, List<Integer>> targetsByHash = new HashMap<>();
+        if (semantics == MatchingSemantics.EXACT) {
+            for (int j = 0; j < preparedTargets.size(); j++)
+                targetsByHash.computeIfAbsent(preparedTargets.get(j).getDegreeSequenceHash(), h -> new ArrayList<>()).add(j);
+        }
+
+        Iterator<Callable<BatchMatchResult>> tasks = new Iterator<>() {
+            private int i, k;                   // the current pattern and the position in its candidate targets
+            private List<Integer> candidates;   // null if all the targets are candidates
+            private Callable<BatchMatchResult> next = advance();
+
+            /**
+             * @return the search for the next pair that passes the invariants, or null if there is none
+             */
+            private Callable<BatchMatchResult> advance() {
+                while (i < preparedPatterns.size()) {
+                    PreparedGraph p = preparedPatterns.get(i);
+                    if (semantics == MatchingSemantics.EXACT && k == 0)
+                        candidates = targetsByHash.getOrDefault(p.getDegreeSequenceHash(), List.of());
+
+                    int size = candidates == null ? preparedTargets.size() : candidates.size();
+                    while (k < size) {
+                        int j = candidates == null ? k : candidates.get(k);
+                        k++;
+                        PreparedGraph t = preparedTargets.get(j);
+                        if (compatible(p, t)) {
+                            int patternIndex = i;
+                            return () -> search(patternIndex, j, p, t);
+                        }
+                    }
+                    i++;
+                    k = 0;
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Callable<BatchMatchResult> next() {
+                if (next == null)
+                    throw new NoSuchElementException();
+                Callable<BatchMatchResult> current = next;
+                next = advance();
+                return current;
+            }
+        };
+        return stream(tasks);
+    }
+
+    private List<PreparedGraph> prepareAll(List<? extends Graph> graphs) {
+        List<Future<PreparedGraph>> futures = new ArrayList<>(graphs.size());
+        for (Graph g : graphs) {
+            if (g == null)
+                throw new NullPointerException("Graphs cannot be null");
+            futures.add(executor.submit(() -> new PreparedGraph(g, cacheMode)));
+        }
+
+        List<PreparedGraph> prepared = new ArrayList<>(graphs.size());
+        try {
+            for (Future<PreparedGraph> f : futures)
+                prepared.add(getResult(f));
+        } catch (RuntimeException | Error e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e;
+        }
+        return prepared;
+    }
+
+    private boolean compatible(PreparedGraph pattern, PreparedGraph target) {
+        if (semantics == MatchingSemantics.EXACT)
+            return pattern.mayBeIsomorphicTo(target);
+        return pattern.mayBeContainedIn(target);
+    }
+
+    /**
+     * Searches the first mapping from the pattern to the target, if the invariants do not reject the pair.
+     */
+    private BatchMatchResult search(int patternIndex, int targetIndex, PreparedGraph pattern, PreparedGraph target) {
+        if (!compatible(pattern, target))
+            return new BatchMatchResult(patternIndex, targetIndex, pattern.getGraph(), target.getGraph(),
+                    null, SearchStatus.COMPLETED, true);
+
+        SearchResult result = new VF2SubGraphIsomorphism(pattern, target, semantics).getMapping(budget);
+        IsomorphicGraphMapping mapping = result.getMappings().isEmpty() ? null : result.getMappings().get(0);
+        return new BatchMatchResult(patternIndex, targetIndex, pattern.getGraph(), target.getGraph(),
+                mapping, result.getStatus(), false);
+    }
+
+    private Stream<BatchMatchResult> stream(Iterator<Callable<BatchMatchResult>> tasks) {
+        ResultSpliterator spliterator = new ResultSpliterator(tasks);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::cancel);
+    }
+
+    /**
+     * @return the value of the completed future
+     * @throws CancellationException if the future was cancelled or the thread was interrupted while waiting
+     */
+    private static <T> T getResult(Future<T> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the results");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re)
+                throw re;
+            if (cause instanceof Error err)
+                throw err;
+            throw new CompletionException(cause);
+        }
+    }
+
+    /**
+     * Submits the searches lazily, keeping at most {@code window} of them pending,
+     * and returns their results in the order in which they complete.
+     */
+    private class ResultSpliterator extends Spliterators.AbstractSpliterator<BatchMatchResult> {
+        private final Iterator<Callable<BatchMatchResult>> tasks;
+        private final BlockingQueue<Future<BatchMatchResult>> completed = new LinkedBlockingQueue<>();
+        private final Set<Future<BatchMatchResult>> pending = ConcurrentHashMap.newKeySet();
+        private volatile boolean cancelled;
+
+        ResultSpliterator(Iterator<Callable<BatchMatchResult>> tasks) {
+            super(Long.MAX_VALUE, Spliterator.NONNULL);
+            this.tasks = tasks;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super BatchMatchResult> action) {
+            while (!cancelled && pending.size() < window && tasks.hasNext())
+                submit(tasks.next());
+
+            if (pending.isEmpty())
+                return false;
+
+            Future<BatchMatchResult> f;
+            try {
+                f = completed.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new CancellationException("Interrupted while waiting for the results");
+            }
+            pending.remove(f);
+
+            action.accept(getResult(f));
+            return true;
+        }
+
+        private void submit(Callable<BatchMatchResult> task) {
+            // the task adds itself to the queue when it is done(like ExecutorCompletionService)
+            FutureTask<BatchMatchResult> f = new FutureTask<>(task) {
+                @Override
+                protected void done() {
+                    completed.add(this);
+                }
+            };
+            pending.add(f);
+            executor.execute(f);
+        }
+
+        /**
+         * Stops submitting new searches and interrupts the running ones.
+         */
+        void cancel() {
+            cancelled = true;
+            for (Future<BatchMatchResult> f : pending)
+                f.cancel(true);
+        }
+    }
+
+    /**
+     * Shuts down the pool created by this matcher(an executor given to the constructor is left running).
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor)
+            executor.shutdownNow();
+    }
+}
@@ -0,0 +1,549 @@
+package org.graph4j.iso;
+
+import org.graph4j.Digraph;
+import org.graph4j.Edge;
+import org.graph4j.Graph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Canonical labeling of a general graph, by partition refinement and individualization.
+ * <p>
+ *     Based on "B. D. McKay, A. Piperno, Practical graph isomorphism, II, Journal of Symbolic Computation, 2014
+ *     (10.1016/j.jsc.2013.09.003)"(the nauty and Traces algorithms), simplified.
+ * </p>
+ *
+ * <p>
+ *     The vertices are colored by their label, then the coloring is refined until every two vertices of the same color
+ *     have the same number of neighbours of every color(equitable partition). If some colors are still shared, a vertex
+ *     of the first smallest such color is individualized(given a new color) and the coloring is refined again,
+ *     for every vertex of that color: this gives a search tree, whose leaves are the orderings of the vertices.
+ *     The canonical ordering is the leaf with the smallest adjacency code. Two leaves with the same code give
+ *     an automorphism of the graph, which is used to skip the equivalent branches of the search tree.
+ * </p>
+ *
+ * <p>
+ *     The result is the canonical position of every vertex and a {@link GraphCertificate}: two graphs have the same
+ *     certificate if and only if they are isomorphic(a directed and an undirected graph never have the same
+ *     certificate), so a graph can be looked up in a collection of graphs
+ *     with a hash lookup, instead of an isomorphism test against every graph.
+ * </p>
+ *
+ * <p>
+ *     Any graph accepted by {@link GraphUtil#convertToDigraph(Graph)} is supported: directed or undirected,
+ *     with self loops or multiple edges. The labels of the vertices and of the edges are compared by their
+ *     string representation(toString), and null is a label like any other(unlike VF2, where a missing label
+ *     matches every label). The weights of the edges are ignored.
+ * </p>
+ *
+ * <p>
+ *     Note: the worst case is exponential(as for any known algorithm), but for most graphs the refinement
+ *     alone gives a discrete partition, or the automorphisms prune almost all the search tree.
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public class CanonicalLabeling {
+    private final Graph<?,?> graph;
+    private final Digraph<?,?> dg;
+    private final int n;
+
+    // the graph, by the indices of the vertices
+    private int[] vertexClass;          // the position of the label of every vertex in vertexKeys
+    private int[][] successors;         // the distinct successors of every vertex, sorted
+    private int[][] successorClass;     // the class(position in edgeKeys) of the edges to the successors
+    private int[][] predecessors;
+    private int[][] predecessorClass;
+    private String[] vertexKeys;        // the distinct vertex labels, sorted
+    private String[] edgeKeys;          // the distinct edge label lists(multiple edges), sorted
+
+    // the search tree
+    private int[] path;                 // the individualized vertices, from the root to the current node
+    private int[] firstCode, bestCode;  // the adjacency codes of the first and of the best leaf
+    private int[] firstPath, bestPath;
+    private int[] firstOrder, bestOrder;    // order[p] = the vertex at position p, in the leaf
+    private final List<int[]> automorphisms = new ArrayList<>();
+
+    private int[] canonicalPosition;
+    private GraphCertificate certificate;
+    private boolean done;
+
+    /**
+     * @param graph the graph to be labeled
+     * @throws NullPointerException if {@code graph} is {@code null}
+     */
+    public CanonicalLabeling(Graph<?,?> graph) {
+        if (graph == null)
+            throw new NullPointerException("Graph cannot be null");
+
+        this.graph = graph;
+        this.dg = GraphUtil.convertToDigraph(graph);
+        this.n = dg.numVertices();
+    }
+
+    /**
+     * @return the certificate of the graph: equal for isomorphic graphs, different otherwise
+     */
+    public GraphCertificate getCertificate() {
+        compute();
+        return certificate;
+    }
+
+    /**
+     * @param vertex a vertex of the graph
+     * @return the position of the vertex in the canonical order(from 0 to n-1)
+     */
+    public int getCanonicalPosition(int vertex) {
+        compute();
+        return canonicalPosition[dg.indexOf(vertex)];
+    }
+
+    /**
+     * @return the vertices of the graph, in the canonical order
+     */
+    public int[] getCanonicalOrder() {
+        compute();
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++)
+            order[canonicalPosition[i]] = dg.vertexAt(i);
+        return order;
+    }
+
+    /**
+     * @return the generators of the automorphism group found by the search, as permutations of the vertex indices
+     * (not necessarily a complete set of generators)
+     */
+    public List<int[]> getAutomorphisms() {
+        compute();
+        List<int[]> result = new ArrayList<>(automorphisms.size());
+        for (int[] gamma : automorphisms)
+            result.add(gamma.clone());
+        return result;
+    }
+
+    /**
+     * @param other the canonical labeling of another graph
+     * @return true if the two graphs are isomorphic
+     */
+    public boolean isIsomorphicTo(CanonicalLabeling other) {
+        return getCertificate().equals(other.getCertificate());
+    }
+
+    /**
+     * Maps the vertices with the same canonical position.
+     * @param other the canonical labeling of another graph
+     * @return the isomorphism from this graph to the other graph, or null if they are not isomorphic
+     */
+    public IsomorphicGraphMapping getMapping(CanonicalLabeling other) {
+        if (!isIsomorphicTo(other))
+            return null;
+
+        int[] order1 = getCanonicalOrder();
+        int[] order2 = other.getCanonicalOrder();
+        int[] forwardMap = new int[n];
+        int[] backwardMap = new int[n];
+        for (int p = 0; p < n; p++) {
+            forwardMap[graph.indexOf(order1[p])] = order2[p];
+            backwardMap[other.graph.indexOf(order2[p])] = order1[p];
+        }
+        return new IsomorphicGraphMapping(forwardMap, backwardMap, graph, other.graph);
+    }
+
+    private void compute() {
+        if (done)
+            return;
+
+        computeClasses();
+
+        path = new int[n];
+        search(refine(toCellStarts(vertexClass)), 0);
+
+        canonicalPosition = new int[n];
+        for (int p = 0; p < n; p++)
+            canonicalPosition[bestOrder[p]] = p;
+        certificate = new GraphCertificate(encode());
+
+        // only needed during the search
+        firstCode = firstPath = firstOrder = bestPath = null;
+        done = true;
+    }
+
+    /**
+     * Computes the classes of the vertices(by label) and of the edges(by the sorted list of the labels
+     * of the edges between the same two vertices), numbered in the sorted order of the keys, so that
+     * isomorphic graphs get the same numbers.
+     */
+    private void computeClasses() {
+        String[] vertexKey = new String[n];
+        for (int i = 0; i < n; i++)
+            vertexKey[i] = key(dg.getVertexLabel(dg.vertexAt(i)));
+        this.vertexKeys = new TreeSet<>(Arrays.asList(vertexKey)).toArray(new String[0]);
+        this.vertexClass = new int[n];
+        for (int i = 0; i < n; i++)
+            vertexClass[i] = Arrays.binarySearch(vertexKeys, vertexKey[i]);
+
+        // the labels of the edges from every vertex, grouped by the target
+        List<Map<Integer, List<String>>> labels = new ArrayList<>(n);
+        TreeSet<String> edgeKeySet = new TreeSet<>();
+        for (int i = 0; i < n; i++) {
+            Map<Integer, List<String>> byTarget = new HashMap<>();
+            for (Edge<?> e : dg.outgoingEdgesFrom(dg.vertexAt(i))) {
+                if (e != null)
+                    byTarget.computeIfAbsent(dg.indexOf(e.target()), k -> new ArrayList<>()).add(key(e.label()));
+            }
+            labels.add(byTarget);
+        }
+
+        Map<Integer, String>[] edgeKey = newMapArray(n);
+        for (int i = 0; i < n; i++) {
+            for (Map.Entry<Integer, List<String>> entry : labels.get(i).entrySet()) {
+                List<String> list = entry.getValue();
+                list.sort(null);
+                String k = String.join("", list);   // the keys are length prefixed, so the join is unambiguous
+                edgeKey[i].put(entry.getKey(), k);
+                edgeKeySet.add(k);
+            }
+        }
+        this.edgeKeys = edgeKeySet.toArray(new String[0]);
+
+        this.successors = new int[n][];
+        this.successorClass = new int[n][];
+        int[] indegree = new int[n];
+        for (int i = 0; i < n; i++) {
+            int[] targets = edgeKey[i].keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            successors[i] = targets;
+            successorClass[i] = new int[targets.length];
+            for (int k = 0; k < targets.length; k++) {
+                successorClass[i][k] = Arrays.binarySearch(edgeKeys, edgeKey[i].get(targets[k]));
+                indegree[targets[k]]++;
+            }
+        }
+
+        this.predecessors = new int[n][];
+        this.predecessorClass = new int[n][];
+        for (int j = 0; j < n; j++) {
+            predecessors[j] = new int[indegree[j]];
+            predecessorClass[j] = new int[indegree[j]];
+        }
+        int[] size = new int[n];
+        for (int i = 0; i < n; i++) {
+            for (int k = 0; k < successors[i].length; k++) {
+                int j = successors[i][k];
+                predecessors[j][size[j]] = i;
+                predecessorClass[j][size[j]++] = successorClass[i][k];
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Integer, String>[] newMapArray(int size) {
+        Map<Integer, String>[] maps = new Map[size];
+        for (int i = 0; i < size; i++)
+            maps[i] = new HashMap<>();
+        return maps;
+    }
+
+    /**
+     * @return the label as a string, length prefixed(so that lists of labels can be concatenated), or "-" for null
+     */
+    private static String key(Object label) {
+        if (label == null)
+            return "-";
+        String s = label.toString();
+        return s.length() + ":" + s;
+    }
+
+    /**
+     * Renumbers the colors, so that the color of a vertex is the position of its cell in the ordered partition
+     * (the number of vertices with a smaller color). This keeps the order of the cells when a cell is split.
+     */
+    private int[] toCellStarts(int[] color) {
+        int[] count = new int[n + 1];
+        for (int i = 0; i < n; i++)
+            count[color[i] + 1]++;
+        for (int c = 1; c <= n; c++)
+            count[c] += count[c - 1];
+
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++)
+            result[i] = count[color[i]];
+        return result;
+    }
+
+    /**
+     * Refines the coloring until it is equitable: the vertices of a cell are split by the colors of their
+     * successors and predecessors(and the classes of the edges to them), the new cells keep the order of the old ones.
+     * @param color the color of every vertex, as the start of its cell
+     * @return the refined coloring, in the same form
+     */
+    private int[] refine(int[] color) {
+        int cells = countCells(color);
+        long[][] signature = new long[n][];
+        Integer[] vertices = new Integer[n];
+
+        while (cells < n) {
+            for (int i = 0; i < n; i++) {
+                signature[i] = signature(i, color);
+                vertices[i] = i;
+            }
+            Arrays.sort(vertices, (a, b) -> Arrays.compare(signature[a], signature[b]));
+
+            int[] refined = new int[n];
+            int refinedCells = 0;
+            for (int p = 0; p < n; p++) {
+                int v = vertices[p];
+                if (p == 0 || Arrays.compare(signature[v], signature[vertices[p - 1]]) != 0) {
+                    refined[v] = p;
+                    refinedCells++;
+                } else {
+                    refined[v] = refined[vertices[p - 1]];
+                }
+            }
+
+            // the signature starts with the old color, so the cells are only split: if none was split, it is equitable
+            if (refinedCells == cells)
+                break;
+            color = refined;
+            cells = refinedCells;
+        }
+        return color;
+    }
+
+    /**
+     * @return the color of the vertex, followed by the sorted (color, edge class) pairs of its successors
+     * and of its predecessors
+     */
+    private long[] signature(int i, int[] color) {
+        int out = successors[i].length;
+        int in = predecessors[i].length;
+        long[] s = new long[2 + out + in];
+        s[0] = color[i];
+        s[1] = out;
+        for (int k = 0; k < out; k++)
+            s[2 + k] = ((long) color[successors[i][k]] << 32) | successorClass[i][k];
+        for (int k = 0; k < in; k++)
+            s[2 + out + k] = ((long) color[predecessors[i][k]] << 32) | predecessorClass[i][k];
+        Arrays.sort(s, 2, 2 + out);
+        Arrays.sort(s, 2 + out, s.length);
+        return s;
+    }
+
+    private int countCells(int[] color) {
+        boolean[] start = new boolean[n];
+        int cells = 0;
+        for (int i = 0; i < n; i++) {
+            if (!start[color[i]]) {
+                start[color[i]] = true;
+                cells++;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * @return the first smallest cell with more than one vertex, or -1 if the partition is discrete
+     */
+    private int targetCell(int[] color) {
+        int[] size = new int[n];
+        for (int i = 0; i < n; i++)
+            size[color[i]]++;
+
+        int target = -1;
+        for (int c = 0; c < n; c++)
+            if (size[c] > 1 && (target == -1 || size[c] < size[target]))
+                target = c;
+        return target;
+    }
+
+    /**
+     * Depth first search in the search tree.
+     * @param color the equitable coloring of the current node
+     * @param depth the number of individualized vertices
+     * @return the depth to return to: less than depth if an automorphism shows that the rest of the subtree
+     * is equivalent to an explored one, depth otherwise
+     */
+    private int search(int[] color, int depth) {
+        int target = targetCell(color);
+        if (target == -1)
+            return leaf(color, depth);
+
+        List<Integer> explored = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            if (color[v] != target || sameOrbit(v, explored, depth))
+                continue;
+
+            // individualize v: it keeps the start of the cell, the other vertices of the cell come after it
+            int[] individualized = color.clone();
+            for (int u = 0; u < n; u++)
+                if (color[u] == target && u != v)
+                    individualized[u] = target + 1;
+
+            path[depth] = v;
+            int jump = search(refine(individualized), depth + 1);
+            if (jump < depth)
+                return jump;
+            explored.add(v);
+        }
+        return depth;
+    }
+
+    /**
+     * The automorphisms that fix the individualized vertices map the current node to itself, so the children
+     * of v and of its image are equivalent.
+     * @return true if v is in the same orbit as an explored vertex
+     */
+    private boolean sameOrbit(int v, List<Integer> explored, int depth) {
+        if (explored.isEmpty() || automorphisms.isEmpty())
+            return false;
+
+        int[] orbit = new int[n];
+        for (int i = 0; i < n; i++)
+            orbit[i] = i;
+
+        for (int[] gamma : automorphisms) {
+            boolean fixes = true;
+            for (int d = 0; d < depth && fixes; d++)
+                fixes = gamma[path[d]] == path[d];
+            if (!fixes)
+                continue;
+            for (int i = 0; i < n; i++)
+                union(orbit, i, gamma[i]);
+        }
+
+        int root = find(orbit, v);
+        for (int w : explored)
+            if (find(orbit, w) == root)
+                return true;
+        return false;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int i, int j) {
+        int a = find(parent, i), b = find(parent, j);
+        if (a != b)
+            parent[Math.max(a, b)] = Math.min(a, b);
+    }
+
+    /**
+     * A discrete coloring is an ordering of the vertices: it is compared to the first and to the best leaf.
+     */
+    private int leaf(int[] color, int depth) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++)
+            order[color[i]] = i;
+        int[] code = code(order, color);
+
+        if (firstCode == null) {
+            firstCode = bestCode = code;
+            firstOrder = bestOrder = order;
+            firstPath = bestPath = Arrays.copyOf(path, depth);
+            return depth;
+        }
+
+        if (Arrays.equals(code, firstCode))
+            return automorphism(firstOrder, order, firstPath, depth);
+
+        int cmp = Arrays.compare(code, bestCode);
+        if (cmp == 0)
+            return automorphism(bestOrder, order, bestPath, depth);
+        if (cmp < 0) {
+            bestCode = code;
+            bestOrder = order;
+            bestPath = Arrays.copyOf(path, depth);
+        }
+        return depth;
+    }
+
+    /**
+     * Two leaves with the same code: the vertices at the same positions give an automorphism, which maps the subtree
+     * of the explored leaf to the subtree of the current one, from the node where their paths diverge.
+     * @return the depth of that node
+     */
+    private int automorphism(int[] order1, int[] order2, int[] path1, int depth) {
+        int[] gamma = new int[n];
+        for (int p = 0; p < n; p++)
+            gamma[order1[p]] = order2[p];
+        automorphisms.add(gamma);
+
+        int common = 0;
+        while (common < depth && common < path1.length && path1[common] == path[common])
+            common++;
+        return common;
+    }
+
+    /**
+     * @return the adjacency of the graph relabeled by the given order: for every position, the class of the vertex
+     * and the sorted (position, edge class) pairs of its successors
+     */
+    private int[] code(int[] order, int[] position) {
+        int length = n;
+        for (int i = 0; i < n; i++)
+            length += 1 + 2 * successors[i].length;
+
+        int[] code = new int[length];
+        int k = 0;
+        long[] pairs = new long[n];
+        for (int p = 0; p < n; p++) {
+            int i = order[p];
+            int out = successors[i].length;
+            code[k++] = vertexClass[i];
+            code[k++] = out;
+            for (int s = 0; s < out; s++)
+                pairs[s] = ((long) position[successors[i][s]] << 32) | successorClass[i][s];
+            Arrays.sort(pairs, 0, out);
+            for (int s = 0; s < out; s++) {
+                code[k++] = (int) (pairs[s] >>> 32);
+                code[k++] = (int) pairs[s];
+            }
+        }
+        return code;
+    }
+
+    /**
+     * @return the bytes of the certificate: the number of vertices, whether the graph is directed(an undirected
+     * graph has the same converted digraph as the digraph with both directions of every edge), the keys of the classes
+     * (the code only contains their numbers) and the code of the best leaf
+     */
+    private byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(n);
+            out.writeBoolean(graph.isDirected());
+            writeKeys(out, vertexKeys);
+            writeKeys(out, edgeKeys);
+            out.writeInt(bestCode.length);
+            for (int value : bestCode)
+                out.writeInt(value);
+        } catch (IOException e) {
+            // not possible, the stream is in memory
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeKeys(DataOutputStream out, String[] keys) throws IOException {
+        out.writeInt(keys.length);
+        for (String key : keys) {
+            byte[] utf8 = key.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.graph4j.iso;
+
+import java.util.Arrays;
+
+/**
+ * The certificate of a graph, computed by {@link CanonicalLabeling}: two graphs are isomorphic if and only if
+ * their certificates are equal.
+ *
+ * <p>
+ *     The certificate is immutable and can be used as a key in hash based collections,
+ *     so a graph can be looked up in a large collection of graphs without pairwise isomorphism tests.
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public final class GraphCertificate {
+    private final byte[] bytes;
+    private final int hash;
+
+    GraphCertificate(byte[] bytes) {
+        this.bytes = bytes;
+        this.hash = Arrays.hashCode(bytes);
+    }
+
+    /**
+     * @return a copy of the bytes of the certificate(e.g. for storing it)
+     */
+    public byte[] toByteArray() {
+        return bytes.clone();
+    }
+
+    /**
+     * @param bytes the bytes returned by {@link #toByteArray()}
+     * @return the certificate with the given bytes
+     */
+    public static GraphCertificate fromByteArray(byte[] bytes) {
+        if (bytes == null)
+            throw new NullPointerException("Bytes cannot be null");
+        return new GraphCertificate(bytes.clone());
+    }
+
+    public int length() {
+        return bytes.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof GraphCertificate other))
+            return false;
+        return hash == other.hash && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "GraphCertificate{length=" + bytes.length + ", hash=" + Integer.toHexString(hash) + "}";
+    }
+}
@@ -0,0 +1,419 @@
+package org.graph4j.iso.general;
+
+import org.graph4j.Digraph;
+import org.graph4j.DirectedMultigraph;
+
+import java.util.Arrays;
+
+/**
+ * Abstract class for the bit-parallel version of Ullman's algorithm: exact isomorphism and subgraph isomorphism.
+ *
+ * <p>
+ *     It finds the same mappings as {@link AbstractUllmanState}, but the compatibility matrix M is stored as bit rows:
+ *     bit j of row i is set if the vertex j of g2 is a candidate for the vertex i of g1.
+ *     The refinement is done a word at a time: a neighbour k of i has a candidate neighbour of j if
+ *     "row(k) AND adj2(j)" is not 0, where adj2(j) is the bit row of the successors/predecessors of j.
+ * </p>
+ * <p>
+ *     Every change of M is recorded on a trail, so backTrack() only undoes the words that were actually changed
+ *     at the last level, instead of rescanning the whole matrix.
+ * </p>
+ * <p>
+ *     The ordered digraphs must have the bit rows: the {@link CacheMode#BITSET} cache, or a view that builds them
+ *     (e.g. a stored graph).
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public abstract class AbstractBitUllmanState extends AbstractState {
+    protected long[][] M;           // compatibility matrix, as bit rows; a mapped vertex has only its pair set
+    protected int words;            // number of words of a row
+    protected int prev_1, prev_2;   // previously added vertices
+    protected Trail trail;          // the changes of M, for restoring the previous states
+    protected boolean plainEdges;   // true if compatibleEdges() is always true(no multigraphs, no edge labels in g1)
+    protected MatchingSemantics semantics = MatchingSemantics.EXACT;   // set by the subclasses
+
+    /**
+     * @param g1: the first graph
+     * @param g2: the second graph
+     */
+    public AbstractBitUllmanState(Digraph g1, Digraph g2) {
+        this(new OrderedDigraph(g1, CacheMode.BITSET), new OrderedDigraph(g2, CacheMode.BITSET));
+    }
+
+    /**
+     * Constructor for the initial state, from ordered digraphs that are already built(e.g. by a {@link PreparedGraph}).
+     * @param o1: the first ordered digraph, with bit rows(e.g. the BITSET cache, or a stored graph)
+     * @param o2: the second ordered digraph, with bit rows
+     * @throws IllegalArgumentException if the ordered digraphs do not have the bit rows
+     */
+    public AbstractBitUllmanState(OrderedDigraph o1, OrderedDigraph o2) {
+        if (!o1.hasBitRows() || !o2.hasBitRows())
+            throw new IllegalArgumentException("The ordered digraphs must have bit rows");
+
+        this.o1 = o1;
+        this.o2 = o2;
+
+        this.n1 = o1.getNumVertices();
+        this.n2 = o2.getNumVertices();
+
+        this.core_len = 0;
+
+        this.core_1 = new int[n1];
+        this.core_2 = new int[n2];
+        Arrays.fill(this.core_1, NULL_NODE);
+        Arrays.fill(this.core_2, NULL_NODE);
+
+        this.prev_1 = this.prev_2 = NULL_NODE;
+
+        this.words = (n2 + 63) >>> 6;
+        this.M = new long[n1][words];
+
+        for (int i = 0; i < n1; i++) {
+            for (int j = 0; j < n2; j++) {
+                if (exactOrSubgraphIsomorphismCompatibilityCheck(i, j) &&
+                        compatibleVertices(i, j)) {
+                    this.M[i][j >>> 6] |= 1L << j;
+                }
+            }
+        }
+
+        this.trail = new Trail(n1);
+        this.plainEdges = hasPlainEdges(o1, o2);
+    }
+
+    /**
+     * Copy constructor: the arrays are just referenced, for memory efficiency
+     * @param s: the state to be copied
+     */
+    public AbstractBitUllmanState(AbstractBitUllmanState s) {
+        this.o1 = s.o1;
+        this.o2 = s.o2;
+
+        this.n1 = s.n1;
+        this.n2 = s.n2;
+        this.core_len = s.core_len;
+
+        // there is no need to copy, just reference to the arrays, because we have the backtrack method
+        this.M = s.M;
+        this.words = s.words;
+        this.core_1 = s.core_1;
+        this.core_2 = s.core_2;
+        this.trail = s.trail;
+        this.plainEdges = s.plainEdges;
+        this.semantics = s.semantics;
+        this.statistics = s.statistics;
+
+        this.prev_1 = s.prev_1;
+        this.prev_2 = s.prev_2;
+    }
+
+    /**
+     * @return true if the edges are always compatible, so the candidates found by the word operations need no other check
+     */
+    private static boolean hasPlainEdges(OrderedDigraph o1, OrderedDigraph o2) {
+        if (o1.dg instanceof DirectedMultigraph && o2.dg instanceof DirectedMultigraph)
+            return false;
+
+        // the labels are compared only if both edges have labels; read from the ordered digraph, so a view
+        // that is not backed by a graph4j digraph(e.g. a stored graph) does not have to build it
+        int n = o1.getNumVertices();
+        for (int i = 0; i < n; i++) {
+            for (int j : o1.successors(i)) {
+                if (o1.getEdgeLabel(i, j) != null)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compatibility function for the 2 cases: exact and subgraph isomorphism
+     */
+    public abstract boolean exactOrSubgraphIsomorphismCompatibilityCheck(int v1, int v2);
+
+    /**
+     * Finds the next pair of vertices to be matched
+     * prev_1 must always be equal to core_len(clasic backtracking behaviour)
+     * prev_2 will have values that are compatible with prev_1
+     */
+    public boolean nextPair() {
+        // when we first put the state in the stack, prev_1 and prev_2 are NULL_NODE
+        if (prev_1 == NULL_NODE && prev_2 == NULL_NODE) {
+            prev_1 = core_len;  // which node is currently being matched
+            prev_2 = 0;         // start from 0
+        } else {
+            prev_2++;           // try the next candidate
+        }
+
+        // completed the matching
+        if (prev_1 >= n1)
+            return false;
+
+        // find the next bit set in the row of prev_1, starting from prev_2
+        long[] row = M[prev_1];
+        for (int w = prev_2 >>> 6; w < words; w++) {
+            long bits = w == prev_2 >>> 6 ? row[w] & (-1L << prev_2) : row[w];
+            if (bits != 0) {
+                prev_2 = (w << 6) + Long.numberOfTrailingZeros(bits);
+                return true;
+            }
+        }
+
+        // not found
+        prev_1 = prev_2 = NULL_NODE;
+        return false;
+    }
+
+    /**
+     * Feasible pair: vertices are compatible
+     */
+    public boolean isFeasiblePair() {
+        return (M[prev_1][prev_2 >>> 6] & (1L << prev_2)) != 0;
+    }
+
+    /**
+     * Adds the pair (prev_1, prev_2) to the matching
+     */
+    public void addPair() {
+        // add the pair to the matching
+        core_1[prev_1] = prev_2;
+        core_2[prev_2] = prev_1;
+
+        // increase the size of the matching
+        core_len++;
+        trail.startLevel(core_len);
+
+        // the only candidate of prev_1 is now prev_2
+        long[] row = M[prev_1];
+        for (int w = 0; w < words; w++) {
+            long value = w == prev_2 >>> 6 ? 1L << prev_2 : 0L;
+            if (row[w] != value)
+                setWord(prev_1, w, value);
+        }
+
+        // in the next steps, we cannot use the same prev_2 vertex for the second graph
+        int w2 = prev_2 >>> 6;
+        long bit2 = 1L << prev_2;
+        for (int k = core_len; k < n1; k++) {
+            if ((M[k][w2] & bit2) != 0)
+                setWord(k, w2, M[k][w2] & ~bit2);
+        }
+
+        // update the compatibility matrix
+        refineState();
+    }
+
+    /**
+     * Removes the candidates of some vertices in g1, after a match is found
+     */
+    private void refineState() {
+        if (statistics != null)
+            statistics.refinePasses++;
+
+        for (int i = core_len; i < n1; i++) {                   // for the remaining vertices in g1
+            long[] row = M[i];
+            for (int w = 0; w < words; w++) {
+                long bits = row[w];
+                while (bits != 0) {                             // for all the candidates in g2
+                    long bit = bits & -bits;
+                    int j = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    bits ^= bit;
+
+                    if (!existsCandidateNeighbourInSecondGraph(i, j)) {
+                        setWord(i, w, row[w] & ~bit);           // mark as incompatible
+                        if (statistics != null)
+                            statistics.refineRemovals++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Changes a word of M, saving the old value on the trail.
+     */
+    private void setWord(int row, int w, long value) {
+        trail.push(row, w, M[row][w]);
+        M[row][w] = value;
+    }
+
+    /**
+     * Return to the previous state: the words changed at the last level are restored from the trail
+     */
+    public void backTrack() {
+        trail.undoLevel(core_len, M);
+
+        // the last added vertex is core_len - 1
+        int i = core_len - 1;
+        core_2[core_1[i]] = NULL_NODE;
+        core_1[i] = NULL_NODE;
+
+        core_len--;
+    }
+
+    /**
+     * The copy constructor only references the arrays, so we clone them here(the matrix M row by row).
+     */
+    @Override
+    public void detach() {
+        long[][] copy = new long[n1][];
+        for (int i = 0; i < n1; i++)
+            copy[i] = M[i].clone();
+        M = copy;
+
+        core_1 = core_1.clone();
+        core_2 = core_2.clone();
+        trail = trail.copy();
+    }
+
+    /**
+     * After a successful addPair(), we must reinitialize prev_1 and prev_2 in order to find the next pair
+     */
+    public void resetPreviousVertices() {
+        prev_1 = prev_2 = NULL_NODE;
+    }
+
+    /**
+     * Checks if the current state is complete
+     */
+    public abstract boolean isGoal();
+
+    /**
+     * Checks if the current state can be pruned
+     */
+    public abstract boolean isDead();
+
+    /**
+     * @return true if some unmapped vertex from g1 has no candidate left
+     */
+    protected boolean hasEmptyRow() {
+        for (int i = core_len; i < n1; i++) {
+            long[] row = M[i];
+            boolean empty = true;
+            for (int w = 0; w < words && empty; w++)
+                empty = row[w] == 0;
+
+            if (empty)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * For every neighbour of i, there must be at least one candidate that is neighbour of j
+     * If this condition is not respected, then j is eliminated as a candidate for i
+     *
+     * @param i: node from g1
+     * @param j: node from g2, some candidate for i
+     *
+     * @return true if the condition is respected, false otherwise
+     */
+    protected boolean existsCandidateNeighbourInSecondGraph(int i, int j) {
+        long[] succ2 = o2.successorBits(j);
+        long[] pred2 = o2.predecessorBits(j);
+
+        for (int k : o1.successors(i)) {
+            if (!existsCandidateNeighbour(i, k, j, true, o1.containsEdge(k, i), succ2, pred2))
+                return false;
+        }
+
+        for (int k : o1.predecessors(i)) {
+            // the neighbours in both directions were checked with the successors
+            if (o1.containsEdge(i, k))
+                continue;
+
+            if (!existsCandidateNeighbour(i, k, j, false, true, succ2, pred2))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * A candidate l of k is a candidate neighbour of j if the edges j->l and l->j exist exactly when
+     * the edges i->k and k->i exist(and they are compatible).
+     * For monomorphism, the edges j->l and l->j only have to exist when i->k and k->i exist.
+     */
+    private boolean existsCandidateNeighbour(int i, int k, int j, boolean edge_ik, boolean edge_ki,
+                                             long[] succ2, long[] pred2) {
+        long[] row = M[k];
+        long missing = semantics == MatchingSemantics.MONOMORPHISM ? -1L : 0L;    // the edges of g2 that are allowed
+        for (int w = 0; w < words; w++) {
+            // the bits after n2 are never set in the rows of M, so negating the adjacency rows is safe
+            long bits = row[w] &
+                    (edge_ik ? succ2[w] : ~succ2[w] | missing) &
+                    (edge_ki ? pred2[w] : ~pred2[w] | missing);
+
+            if (bits == 0)
+                continue;
+
+            if (plainEdges)
+                return true;
+
+            while (bits != 0) {
+                int l = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                if ((!edge_ik || compatibleEdges(i, k, j, l)) &&
+                        (!edge_ki || compatibleEdges(k, i, l, j)))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stack of the changed words of M, with the position where every level starts.
+     */
+    protected static class Trail {
+        private int[] rows = new int[64];
+        private int[] positions = new int[64];
+        private long[] values = new long[64];
+        private int size;
+        private final int[] levelStart;     // levelStart[l] = size of the trail before the changes of level l
+
+        Trail(int levels) {
+            this.levelStart = new int[levels + 1];
+        }
+
+        private Trail(Trail t) {
+            this.rows = t.rows.clone();
+            this.positions = t.positions.clone();
+            this.values = t.values.clone();
+            this.size = t.size;
+            this.levelStart = t.levelStart.clone();
+        }
+
+        void startLevel(int level) {
+            levelStart[level] = size;
+        }
+
+        void push(int row, int position, long value) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, 2 * size);
+                positions = Arrays.copyOf(positions, 2 * size);
+                values = Arrays.copyOf(values, 2 * size);
+            }
+            rows[size] = row;
+            positions[size] = position;
+            values[size] = value;
+            size++;
+        }
+
+        /**
+         * Restores the words changed at the given level, in the reverse order of the changes.
+         */
+        void undoLevel(int level, long[][] matrix) {
+            int start = levelStart[level];
+            while (size > start) {
+                size--;
+                matrix[rows[size]][positions[size]] = values[size];
+            }
+        }
+
+        Trail copy() {
+            return new Trail(this);
+        }
+    }
+}
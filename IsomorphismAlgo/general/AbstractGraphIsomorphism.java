@@ -8,6 +8,10 @@ import org.graph4j.iso.general.GraphIsomorphism;
 import org.graph4j.iso.general.State;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Abstract class for finding the isomorphism between two graphs.
@@ -19,28 +23,82 @@ import java.util.*;
  * @author Ignat Gabriel-Andrei
  */
 public abstract class AbstractGraphIsomorphism implements GraphIsomorphism {
+    public static final int DEFAULT_SPLIT_DEPTH = 2;    // number of levels of the search tree that are split into subtasks
+    private static final int BUDGET_CHECK_MASK = 63;    // the clock and the cancellation are checked once every 64 candidate pairs
+
     protected final Digraph dg1;
     protected final Digraph dg2;
-    protected final boolean cache;
+    protected final CacheMode cacheMode;
+    protected final PreparedGraph prepared1, prepared2;  // null if the graphs were not prepared
+    private SearchStatistics statistics;     // null if the statistics are not collected
 
     /**
      * Constructor for the AbstractGraphIsomorphism class.
      *
      * @param g1 the first graph -> it is converted to a digraph
      * @param g2 the second graph -> it is converted to a digraph
-     * @param cache if true, the algorithm will cache the successors, predecessors, the adjacency relations
+     * @param cacheMode how the algorithm will cache the successors, predecessors, the adjacency relations
      */
-    public AbstractGraphIsomorphism(Graph g1, Graph g2, boolean cache) {
+    public AbstractGraphIsomorphism(Graph g1, Graph g2, CacheMode cacheMode) {
         validateGraphs(g1, g2);
+        if (cacheMode == null)
+            throw new NullPointerException("Cache mode cannot be null");
+
         this.dg1 = GraphUtil.convertToDigraph(g1);
         this.dg2 = GraphUtil.convertToDigraph(g2);
-        this.cache = cache;
+        this.cacheMode = cacheMode;
+        this.prepared1 = this.prepared2 = null;
+    }
+
+    /**
+     * Constructor for graphs that were already prepared: the digraphs and the ordered digraphs are reused,
+     * and the pairs whose invariants do not match are rejected before the search.
+     *
+     * @param g1 the first prepared graph
+     * @param g2 the second prepared graph
+     */
+    public AbstractGraphIsomorphism(PreparedGraph g1, PreparedGraph g2) {
+        if (g1 == null || g2 == null)
+            throw new NullPointerException("Graphs cannot be null");
+        if (!g1.hasSameTypeAs(g2))
+            throw new IllegalArgumentException("Graphs must have the same type");
+
+        // the views(e.g. stored graphs) are not converted to graph4j digraphs, only their ordered digraphs are used
+        this.dg1 = g1.isView() ? null : g1.getDigraph();
+        this.dg2 = g2.isView() ? null : g2.getDigraph();
+        this.cacheMode = g1.getCacheMode();
+        this.prepared1 = g1;
+        this.prepared2 = g2;
+    }
+
+    /**
+     * @param g1 the first graph -> it is converted to a digraph
+     * @param g2 the second graph -> it is converted to a digraph
+     * @param cache if true, the algorithm will cache the successors, predecessors, the adjacency relations
+     */
+    public AbstractGraphIsomorphism(Graph g1, Graph g2, boolean cache) {
+        this(g1, g2, CacheMode.of(cache));
     }
 
     public AbstractGraphIsomorphism(Graph g1, Graph g2) {
         this(g1, g2, false);
     }
 
+    /**
+     * Enables the statistics for the next sequential searches(the parallel search does not collect them).
+     * @param statistics the collector where the counters are accumulated, or null for disabling the statistics
+     */
+    public void setStatistics(SearchStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * @return the statistics collector, or null if the statistics are disabled
+     */
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
     /**
      * Validates the graphs.
      * @param g1 the first graph
@@ -64,13 +122,13 @@ public abstract class AbstractGraphIsomorphism implements GraphIsomorphism {
     }
 
     /**
-     * Checks if the two graphs are isomorphic by computing the first mapping, if it exists.
+     * Checks if the two graphs are isomorphic by searching the first mapping, without building it
+     * (so the views, e.g. stored graphs, are never converted to graph4j graphs).
      * @return true if the graphs are isomorphic, false otherwise
      */
     @Override
     public boolean areIsomorphic() {
-        Optional<IsomorphicGraphMapping> mappings = getMapping();
-        return mappings.isPresent();
+        return countMappings(1) > 0;
     }
 
     /**
@@ -90,13 +148,187 @@ public abstract class AbstractGraphIsomorphism implements GraphIsomorphism {
         return match(false);
     }
 
+    /**
+     * Computes the first mapping, within the given budget.
+     * @param budget the limits of the search
+     * @return the first mapping(if it was found) and how the search ended
+     * @throws NullPointerException if the budget is null
+     */
+    public SearchResult getMapping(SearchBudget budget) {
+        return matchIterative(true, validateBudget(budget));
+    }
+
+    /**
+     * Computes the mappings between the two graphs, until the search space is explored or the budget is exhausted.
+     *
+     * <p>
+     *     The budget is checked cooperatively, in the search loop: the number of states on every new state,
+     *     the clock, the cancellation token and the interrupt flag of the thread once every few candidate pairs
+     *     (even if none of them is feasible).
+     *     If the budget is exhausted, the result contains the mappings found until then.
+     * </p>
+     *
+     * @param budget the limits of the search
+     * @return the mappings found and how the search ended
+     * @throws NullPointerException if the budget is null
+     */
+    public SearchResult getAllMappings(SearchBudget budget) {
+        return matchIterative(false, validateBudget(budget));
+    }
+
+    private static SearchBudget validateBudget(SearchBudget budget) {
+        if (budget == null)
+            throw new NullPointerException("Budget cannot be null");
+        return budget;
+    }
+
+    /**
+     * The mappings are computed lazily, one at a time, when they are requested.
+     * @return an iterator over all the mappings between the two graphs
+     */
+    @Override
+    public Iterator<IsomorphicGraphMapping> mappingIterator() {
+        return new MappingIterator(newRootState(), null);
+    }
+
+    /**
+     * The mappings are computed lazily, so the stream can be short-circuited(e.g. with limit()).
+     * @return a sequential stream of all the mappings between the two graphs
+     */
+    @Override
+    public Stream<IsomorphicGraphMapping> mappingStream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(mappingIterator(), Spliterator.ORDERED | Spliterator.NONNULL),
+                false);
+    }
+
+    /**
+     * Calls the visitor for every mapping between the two graphs, until it asks to stop.
+     *
+     * <p>
+     *     The visitor receives a read-only view of the mapping of the goal state, so nothing is allocated for a
+     *     mapping. It is useful when the mappings only need to be counted or aggregated.
+     * </p>
+     *
+     * @param visitor the callback for the found mappings
+     * @throws NullPointerException if the visitor is null
+     */
+    public void visitMappings(MatchVisitor visitor) {
+        if (visitor == null)
+            throw new NullPointerException("Visitor cannot be null");
+
+        MappingIterator iterator = new MappingIterator(newRootState(), null);
+
+        State goal;
+        while ((goal = iterator.nextGoal()) != null) {
+            if (!visitor.visit(goal.getMappingView()))
+                return;
+        }
+    }
+
+    /**
+     * Counts all the mappings between the two graphs, without building them.
+     * @return the number of mappings
+     */
+    public long countMappings() {
+        return countMappings(Long.MAX_VALUE);
+    }
+
+    /**
+     * Counts the mappings between the two graphs, without building them. The search stops when the limit is reached.
+     * @param limit the maximum number of mappings that are counted
+     * @return the number of mappings, at most limit
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    public long countMappings(long limit) {
+        if (limit < 0)
+            throw new IllegalArgumentException("Limit cannot be negative");
+
+        if (limit == 0)
+            return 0;
+
+        long[] count = {0};
+        visitMappings(mapping -> ++count[0] < limit);
+
+        return count[0];
+    }
+
+    /**
+     * Counts the automorphisms of the first graph(the pattern), meaning the mappings of the first graph to itself.
+     * @return the number of automorphisms of the first graph
+     */
+    public long countPatternAutomorphisms() {
+        if (prepared1 != null)
+            return new VF2ExactGraphIsomorphism(prepared1, prepared1).countMappings();
+        return new VF2ExactGraphIsomorphism(this.dg1, this.dg1, this.cacheMode).countMappings();
+    }
+
+    /**
+     * Counts the distinct embeddings of the first graph in the second one.
+     *
+     * <p>
+     *     Every embedding(e.g. a triangle of the second graph) is found once for every automorphism of the pattern,
+     *     so the number of mappings is divided by the number of automorphisms.
+     * </p>
+     *
+     * @return the number of distinct embeddings
+     */
+    public long countDistinctEmbeddings() {
+        long mappings = countMappings();
+        if (mappings == 0)
+            return 0;
+
+        return mappings / countPatternAutomorphisms();
+    }
+
+    /**
+     * Computes all the mappings in parallel, using the common fork-join pool.
+     * @return all the mappings between the two graphs, in the same order as {@link #getAllMappings()}
+     */
+    public List<IsomorphicGraphMapping> getAllMappingsParallel() {
+        return getAllMappingsParallel(ForkJoinPool.commonPool(), DEFAULT_SPLIT_DEPTH);
+    }
+
+    /**
+     * Computes all the mappings in parallel.
+     *
+     * <p>
+     *     The first {@code splitDepth} levels of the search tree are split into independent subtasks(one for every
+     *     feasible pair returned by nextPair()). Every subtask works on its own copy of the state arrays, and the
+     *     subtrees below the split levels are explored sequentially. Idle workers of the pool steal the pending subtasks.
+     * </p>
+     *
+     * @param pool the fork-join pool that runs the subtasks
+     * @param splitDepth the number of levels of the search tree that are split into subtasks
+     * @return all the mappings between the two graphs, in the same order as {@link #getAllMappings()}
+     * @throws NullPointerException if the pool is null
+     * @throws IllegalArgumentException if splitDepth is not positive
+     */
+    public List<IsomorphicGraphMapping> getAllMappingsParallel(ForkJoinPool pool, int splitDepth) {
+        if (pool == null)
+            throw new NullPointerException("Pool cannot be null");
+
+        if (splitDepth < 1)
+            throw new IllegalArgumentException("Split depth must be positive");
+
+        State s = createRootState();
+        if (s == null || s.isDead())
+            return new ArrayList<>();
+
+        // the ordered digraphs are shared by all the subtasks, so their caches must not be filled lazily
+        if (s instanceof AbstractState as)
+            as.fillCaches();
+
+        return pool.invoke(new ParallelMatchTask(s, splitDepth, false));
+    }
+
     /**
      * Computes the mappings between the two graphs.
      * @param onlyFirstMapping if true, the method will return only the first mapping
      * @return a list of all the mappings between the two graphs
      */
     private List<IsomorphicGraphMapping> match(boolean onlyFirstMapping){
-        return matchIterative(onlyFirstMapping);
+        return matchIterative(onlyFirstMapping, null).getMappings();
     }
 
 
@@ -104,63 +336,314 @@ public abstract class AbstractGraphIsomorphism implements GraphIsomorphism {
      * An iterative version of the match method, it simulates the recursive approach.
      * By doing this,we might gain some performance, because we avoid the overhead of the recursive calls.
      *
-     * @return a list of the mappings between the two graphs
+     * @param budget the limits of the search, or null if it is not limited
+     * @return the mappings between the two graphs and how the search ended
      */
-    private List<IsomorphicGraphMapping> matchIterative(boolean onlyFirstMapping){
+    private SearchResult matchIterative(boolean onlyFirstMapping, SearchBudget budget){
         List<IsomorphicGraphMapping> mappings = new ArrayList<>();
 
+        // the initial state with an empty mapping
+        State s = newRootState();
+
+        MappingIterator iterator = new MappingIterator(s, budget);
+        matchIterative(iterator, mappings, onlyFirstMapping);
+        return new SearchResult(mappings, iterator.status, iterator.exploredStates);
+    }
+
+    /**
+     * @return the initial state, with the statistics collector attached(if there is one),
+     * or null if the prepared graphs show that there is no mapping
+     */
+    private State newRootState() {
+        State s = createRootState();
+        if (statistics != null && s instanceof AbstractState as)
+            as.setStatistics(statistics);
+        return s;
+    }
+
+    /**
+     * @return the initial state, built from the prepared graphs if there are any,
+     * or null if their invariants do not match
+     */
+    private State createRootState() {
+        if (prepared1 == null)
+            return getStateInstance(this.dg1, this.dg2, this.cacheMode);
+
+        if (!preparedGraphsCompatible())
+            return null;
+
+        return getStateInstance(prepared1.getOrderedDigraph(), prepared2.getOrderedDigraph());
+    }
+
+    /**
+     * Explores the subtree of the search space rooted in the given state.
+     * The root state is never backtracked, so the search can also start from a partial mapping.
+     *
+     * @param s the root of the explored subtree
+     * @param mappings the list where the found mappings are added
+     * @param onlyFirstMapping if true, the method stops after the first mapping
+     */
+    private void matchIterative(State s, List<IsomorphicGraphMapping> mappings, boolean onlyFirstMapping){
+        matchIterative(new MappingIterator(s, null), mappings, onlyFirstMapping);
+    }
+
+    private void matchIterative(MappingIterator iterator, List<IsomorphicGraphMapping> mappings, boolean onlyFirstMapping){
+        while(iterator.hasNext()){
+            mappings.add(iterator.next());
+
+            // if we need only the first mapping, we return it
+            if(onlyFirstMapping)
+                return;
+        }
+    }
+
+    /**
+     * Iterator over the mappings, that computes them lazily.
+     *
+     * <p>
+     *     The stack that simulates the recursive calls is kept between the calls, so the search is resumed
+     *     from the last goal state. The memory used is proportional to the depth of the search, not to the
+     *     number of mappings.
+     * </p>
+     */
+    private class MappingIterator implements Iterator<IsomorphicGraphMapping> {
         // stack for simulating the recursive calls
-        Deque<State> stack = new ArrayDeque<>();
+        private final Deque<State> stack = new ArrayDeque<>();
+        private State s;                // the current state
+        private boolean goalPending;    // true if s is a goal state whose mapping was not returned yet
+        private boolean finished;       // true if the whole search space was explored(or the budget was exhausted)
+        private final SearchBudget budget;  // null if the search is not limited
+        private final long deadline;        // System.nanoTime() when the time limit is reached
+        private long exploredStates;
+        private long candidatePairs;        // for checking the clock and the cancellation once every few pairs
+        private SearchStatus status = SearchStatus.COMPLETED;
+        private final SearchStatistics statistics;  // null if the statistics are not collected
+
+        /**
+         * @param root the initial state, or null if it is known that there are no mappings
+         */
+        MappingIterator(State root, SearchBudget budget) {
+            this.s = root;
+            this.finished = root == null || root.isDead();
+            this.budget = budget;
+            this.statistics = root instanceof AbstractState as ? as.statistics : null;
+            this.deadline = budget == null || budget.getTimeLimitNanos() == SearchBudget.NO_LIMIT ?
+                    0 : System.nanoTime() + budget.getTimeLimitNanos();
+        }
 
-        // the initial state with an empty mapping
-        State s = getStateInstance(this.dg1, this.dg2, this.cache);
-
-        // while there are more states to explore
-        while(true){
-            // while for the current state, there are more candidate pairs
-            while(s.nextPair()){
-
-                // if the pair is feasible, we continue, otherwise we truncate the branch
-                if(s.isFeasiblePair()){
-                    // add to stack the current state for restoring it later
-                    stack.push(s);
-
-                    // just like in the recursive approach, we create a copy of the current state and then we add the pair
-                    s = getNewStateInstance(s);
-                    s.addPair();
-                    s.resetPreviousVertices();
-
-                    // if the state is dead, we return to the previous state and continue with another candidate pair
-                    if(s.isDead()) {
-                        break;
-                    }
+        @Override
+        public boolean hasNext() {
+            if (!goalPending && !finished)
+                goalPending = advance();
+
+            return goalPending;
+        }
+
+        @Override
+        public IsomorphicGraphMapping next() {
+            State goal = nextGoal();
+            if (goal == null)
+                throw new NoSuchElementException();
+
+            return goal.getMapping();
+        }
 
-                    // if this state is a goal(complete solution), we add the mapping to the list
-                    if(s.isGoal()) {
-                        mappings.add(s.getMapping());
+        /**
+         * Same as next(), but the mapping is not computed.
+         * @return the next goal state, or null if there are no more
+         */
+        State nextGoal() {
+            if (!hasNext())
+                return null;
 
-                        // if we need only the first mapping, we return it
-                        if(onlyFirstMapping)
-                            return mappings;
+            goalPending = false;
+            return s;
+        }
+
+        /**
+         * Continues the search until the next goal state.
+         * @return true if a goal state was found, false if the search space was exhausted
+         */
+        private boolean advance() {
+            // while there are more states to explore
+            while(true){
+                // while for the current state, there are more candidate pairs
+                while(nextPair()){
+                    // checked for every pair, so a search that rejects all of them can still be stopped
+                    if(budget != null && stopRequested()) {
+                        finished = true;
+                        return false;
+                    }
+
+                    // if the pair is feasible, we continue, otherwise we truncate the branch
+                    if(s.isFeasiblePair()){
+                        if(budget != null && exploredStates >= budget.getMaxStates()) {
+                            status = SearchStatus.STATE_LIMIT_REACHED;
+                            finished = true;
+                            return false;
+                        }
+                        exploredStates++;
+
+                        // add to stack the current state for restoring it later
+                        stack.push(s);
+
+                        // just like in the recursive approach, we create a copy of the current state and then we add the pair
+                        s = getNewStateInstance(s);
+                        s.addPair();
+                        s.resetPreviousVertices();
+
+                        if(statistics != null)
+                            countState();
+
+                        // if the state is dead, we return to the previous state and continue with another candidate pair
+                        if(s.isDead()) {
+                            if(statistics != null)
+                                statistics.deadStates++;
+                            break;
+                        }
+
+                        // if this state is a goal(complete solution), we stop here; the next call continues from it
+                        if(s.isGoal()) {
+                            if(statistics != null)
+                                statistics.goals++;
+                            return true;
+                        }
                     }
                 }
+
+                if(stack.isEmpty()) {
+                    finished = true;
+                    return false;
+                }
+
+                // if we have no more pairs to explore, we backtrack(get to the previous state)
+                s.backTrack();
+                s = stack.pop();
+
+                if(statistics != null)
+                    statistics.backtracks++;
             }
+        }
+
+        /**
+         * Calls s.nextPair(), counting every call(also the last one, that finds no pair).
+         */
+        private boolean nextPair() {
+            if(statistics != null)
+                statistics.nextPairCalls++;
+            return s.nextPair();
+        }
+
+        private void countState() {
+            statistics.statesPushed++;
+            if (s.getCoreLen() > statistics.maxDepth)
+                statistics.maxDepth = s.getCoreLen();
+        }
+
+        /**
+         * Called for every candidate pair, but the checks are done only once every few pairs,
+         * because reading the clock is more expensive than checking a pair of a small graph.
+         * @return true if the search must stop, the reason is saved in status
+         */
+        private boolean stopRequested() {
+            if ((candidatePairs++ & BUDGET_CHECK_MASK) != 0)
+                return false;
+
+            CancellationToken token = budget.getCancellationToken();
+            if ((token != null && token.isCancelled()) || Thread.currentThread().isInterrupted()) {
+                status = SearchStatus.CANCELLED;
+                return true;
+            }
+
+            if (budget.getTimeLimitNanos() != SearchBudget.NO_LIMIT && System.nanoTime() - deadline >= 0) {
+                status = SearchStatus.TIME_LIMIT_REACHED;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Fork-join task that explores a subtree of the search space.
+     *
+     * <p>
+     *     While there are levels left to split, a subtask is created for every feasible pair of the state.
+     *     The subtask only references the arrays of its parent, and copies them when it starts, so the pending
+     *     subtasks don't hold any memory. The results are concatenated in the order of the pairs, so they are
+     *     identical to the ones of the sequential search.
+     * </p>
+     */
+    private class ParallelMatchTask extends RecursiveTask<List<IsomorphicGraphMapping>> {
+        private static final long serialVersionUID = 1L;
 
-            if(stack.isEmpty())
-                break;
+        private final State s;
+        private final int splitDepth;       // number of levels that are still split into subtasks
+        private final boolean addPair;      // if true, the pair selected by nextPair() in s must be added first
 
-            // if we have no more pairs to explore, we backtrack(get to the previous state)
-            s.backTrack();
-            s = stack.pop();
+        ParallelMatchTask(State s, int splitDepth, boolean addPair) {
+            this.s = s;
+            this.splitDepth = splitDepth;
+            this.addPair = addPair;
         }
 
-        return mappings;
+        @Override
+        protected List<IsomorphicGraphMapping> compute() {
+            List<IsomorphicGraphMapping> mappings = new ArrayList<>();
+
+            // same steps as in the sequential search, but on a private copy of the arrays
+            if (addPair) {
+                s.detach();
+                s.addPair();
+                s.resetPreviousVertices();
+
+                if (s.isDead())
+                    return mappings;
+
+                if (s.isGoal())
+                    mappings.add(s.getMapping());
+            }
+
+            // below the split levels, the subtree is explored sequentially
+            if (splitDepth == 0) {
+                matchIterative(s, mappings, false);
+                return mappings;
+            }
+
+            List<ParallelMatchTask> subtasks = new ArrayList<>();
+            while (s.nextPair()) {
+                if (s.isFeasiblePair())
+                    subtasks.add(new ParallelMatchTask(getNewStateInstance(s), splitDepth - 1, true));
+            }
+
+            invokeAll(subtasks);
+            for (ParallelMatchTask subtask : subtasks)
+                mappings.addAll(subtask.join());
+
+            return mappings;
+        }
     }
 
     /**
      *  Instantiates a new empty state.
      */
-    protected abstract State getStateInstance(Digraph g1, Digraph g2, boolean cache);
+    protected abstract State getStateInstance(Digraph g1, Digraph g2, CacheMode cacheMode);
+
+    /**
+     * Instantiates a new empty state from the ordered digraphs of the prepared graphs.
+     * By default, the ordered digraphs are rebuilt, so the algorithms that can share them override this method.
+     */
+    protected State getStateInstance(OrderedDigraph o1, OrderedDigraph o2) {
+        return getStateInstance(o1.getGraph(), o2.getGraph(), this.cacheMode);
+    }
+
+    /**
+     * Necessary conditions for a mapping, checked on the invariants of the prepared graphs before the search.
+     * By default, nothing is checked.
+     * @return false if there is surely no mapping
+     */
+    protected boolean preparedGraphsCompatible() {
+        return true;
+    }
 
     /**
      * Instantiates a new state with the same properties as the given state.
@@ -170,7 +653,7 @@ public abstract class AbstractGraphIsomorphism implements GraphIsomorphism {
 
 //    protected List<IsomorphicGraphMapping> match(boolean onlyFirstMapping){
 //        List<IsomorphicGraphMapping> mappings = new ArrayList<>();
-//        matchRecursive(getStateInstance(dg1, dg2, cache), mappings, onlyFirstMapping, 0);
+//        matchRecursive(getStateInstance(dg1, dg2, cacheMode), mappings, onlyFirstMapping, 0);
 //
 //        return mappings;
 //    }
@@ -0,0 +1,295 @@
+package org.graph4j.iso.general;
+
+import java.util.Arrays;
+
+/**
+ * Abstract class for the states that match the vertices of the first graph in a fixed order(VF2++ and VF3-Light).
+ *
+ * <p>
+ *     The order is computed once, for the initial state, by the subclass. Every vertex of the order has a parent:
+ *     a neighbour matched before it(or none, for the first vertex of a connected component), and its candidates
+ *     are only the unmapped neighbours of the image of its parent, with the same label class.
+ * </p>
+ * <p>
+ *     A candidate pair is feasible if the degrees are compatible, the vertices are compatible and the edges to the
+ *     mapped vertices are preserved in both directions; the subclasses may add their own cutting rule({@link #cut(int, int)}).
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public abstract class AbstractOrderedState extends AbstractState {
+    protected int[] order;              // order[d] = the vertex of g1 matched at depth d
+    protected int[] parent;             // parent[d] = a neighbour of order[d] that is matched before it, or NULL_NODE
+    protected boolean[] parentIsPred;   // true if parent[d] -> order[d], false if order[d] -> parent[d]
+    protected int[] label1, label2;     // the label class of every vertex(0 for all, if the graphs are not fully labelled)
+    protected int numClasses;           // the number of label classes
+    protected int[][] succ1, pred1;     // the distinct successors/predecessors, sorted
+    protected int[][] succ2, pred2;
+    protected boolean labelsMismatch;   // the label classes cannot be matched, whatever the mapping
+    protected int prev_1, prev_2;       // the current candidate pair
+    protected int candidatePos;         // position of prev_2 in the list of candidates
+
+    /**
+     * Constructor for the initial state: computes the adjacency rows and the label classes.
+     * The subclass must compute the matching order.
+     * @param o1: the first ordered digraph
+     * @param o2: the second ordered digraph
+     */
+    protected AbstractOrderedState(OrderedDigraph o1, OrderedDigraph o2) {
+        this.o1 = o1;
+        this.o2 = o2;
+
+        this.n1 = o1.getNumVertices();
+        this.n2 = o2.getNumVertices();
+
+        this.core_len = 0;
+        this.core_1 = new int[n1];      Arrays.fill(this.core_1, NULL_NODE);
+        this.core_2 = new int[n2];      Arrays.fill(this.core_2, NULL_NODE);
+
+        this.succ1 = new int[n1][];
+        this.pred1 = new int[n1][];
+        for (int i = 0; i < n1; i++) {
+            succ1[i] = distinct(o1.successors(i));
+            pred1[i] = distinct(o1.predecessors(i));
+        }
+        this.succ2 = new int[n2][];
+        this.pred2 = new int[n2][];
+        for (int j = 0; j < n2; j++) {
+            succ2[j] = distinct(o2.successors(j));
+            pred2[j] = distinct(o2.predecessors(j));
+        }
+
+        this.label1 = new int[n1];
+        this.label2 = new int[n2];
+        this.numClasses = computeLabelClasses(label1, label2);
+
+        int[] count1 = countClasses(label1);
+        int[] count2 = countClasses(label2);
+        for (int c = 0; c < numClasses; c++)
+            if (!labelCountsCompatible(count1[c], count2[c]))
+                this.labelsMismatch = true;
+
+        this.prev_1 = this.prev_2 = NULL_NODE;
+    }
+
+    /**
+     * Copy constructor: the arrays are just referenced, for memory efficiency.
+     * @param s: the state to be copied
+     */
+    protected AbstractOrderedState(AbstractOrderedState s) {
+        this.o1 = s.o1;
+        this.o2 = s.o2;
+        this.n1 = s.n1;
+        this.n2 = s.n2;
+        this.core_len = s.core_len;
+
+        // the backtrack() method restores them
+        this.core_1 = s.core_1;
+        this.core_2 = s.core_2;
+
+        // never modified after the initial state
+        this.order = s.order;
+        this.parent = s.parent;
+        this.parentIsPred = s.parentIsPred;
+        this.label1 = s.label1;
+        this.label2 = s.label2;
+        this.numClasses = s.numClasses;
+        this.succ1 = s.succ1;
+        this.pred1 = s.pred1;
+        this.succ2 = s.succ2;
+        this.pred2 = s.pred2;
+        this.labelsMismatch = s.labelsMismatch;
+
+        this.prev_1 = s.prev_1;
+        this.prev_2 = s.prev_2;
+        this.candidatePos = s.candidatePos;
+        this.statistics = s.statistics;
+    }
+
+    /**
+     * @return the number of vertices in every label class
+     */
+    protected int[] countClasses(int[] label) {
+        int[] count = new int[numClasses];
+        for (int c : label)
+            count[c]++;
+        return count;
+    }
+
+    /**
+     * Allocates the order, before the subclass computes it.
+     */
+    protected void allocateOrder() {
+        this.order = new int[n1];
+        this.parent = new int[n1];
+        this.parentIsPred = new boolean[n1];
+    }
+
+    /**
+     * Sets the parent of order[d]: its first predecessor that is already ordered, otherwise its first such successor.
+     * @param ordered: true for the vertices of order[0..d-1]
+     */
+    protected void computeParent(int d, boolean[] ordered) {
+        int u = order[d];
+        parent[d] = NULL_NODE;
+        for (int x : pred1[u]) {
+            if (x != u && ordered[x]) {
+                parent[d] = x;
+                parentIsPred[d] = true;
+                return;
+            }
+        }
+        for (int x : succ1[u]) {
+            if (x != u && ordered[x]) {
+                parent[d] = x;
+                parentIsPred[d] = false;
+                return;
+            }
+        }
+    }
+
+    protected int degree(int i) {
+        return succ1[i].length + pred1[i].length;
+    }
+
+    /**
+     * Cutting rule for the whole graphs: count1 vertices of g1 and count2 vertices of g2 have the same label.
+     */
+    protected abstract boolean labelCountsCompatible(int count1, int count2);
+
+    /**
+     * Degree cutting rule for a candidate pair.
+     */
+    protected abstract boolean degreesCompatible(int outdegree1, int indegree1, int outdegree2, int indegree2);
+
+    /**
+     * An extra cutting rule, checked after the edges to the mapped vertices.
+     * @return false if the pair (u, v) cannot lead to a solution
+     */
+    protected boolean cut(int u, int v) {
+        return true;
+    }
+
+    /**
+     * Called after the pair (u, v) was added to the core.
+     */
+    protected void pairAdded(int u, int v) {
+    }
+
+    /**
+     * Called before the pair (u, v) is removed from the core.
+     */
+    protected void pairRemoved(int u, int v) {
+    }
+
+    /**
+     * The vertex of g1 is fixed by the order, the candidates from g2 are the unmapped neighbours of the image of its parent
+     * (or all the unmapped vertices, if it has no parent), with the same label class.
+     * @return true if a pair was found, false otherwise
+     */
+    public boolean nextPair() {
+        if (core_len >= n1)
+            return false;
+
+        if (prev_1 == NULL_NODE) {
+            prev_1 = order[core_len];
+            candidatePos = 0;
+        } else {
+            candidatePos++;
+        }
+
+        int p = parent[core_len];
+        int[] candidates = p == NULL_NODE ? null :
+                parentIsPred[core_len] ? succ2[core_1[p]] : pred2[core_1[p]];
+        int limit = candidates == null ? n2 : candidates.length;
+
+        for (; candidatePos < limit; candidatePos++) {
+            int v = candidates == null ? candidatePos : candidates[candidatePos];
+            if (core_2[v] == NULL_NODE && label1[prev_1] == label2[v]) {
+                prev_2 = v;
+                return true;
+            }
+        }
+
+        prev_2 = NULL_NODE;
+        return false;
+    }
+
+    /**
+     * Checks the degrees, the vertex compatibility, the edges to the mapped vertices and the extra cutting rule.
+     */
+    public boolean isFeasiblePair() {
+        int u = prev_1, v = prev_2;
+
+        if (!degreesCompatible(succ1[u].length, pred1[u].length, succ2[v].length, pred2[v].length))
+            return rejectLookAhead();
+
+        if (!compatibleVertices(u, v))
+            return rejectSemantic();
+
+        // every mapped neighbour of u must be mapped to a neighbour of v(with the same direction)
+        for (int x : succ1[u]) {
+            int y = core_1[x];
+            if (y != NULL_NODE && (!adjacent(succ2, v, y) || !compatibleEdges(u, x, v, y)))
+                return rejectEdge();
+        }
+        for (int x : pred1[u]) {
+            int y = core_1[x];
+            if (y != NULL_NODE && (!adjacent(succ2, y, v) || !compatibleEdges(x, u, y, v)))
+                return rejectEdge();
+        }
+
+        // and the other way around
+        for (int y : succ2[v]) {
+            int x = core_2[y];
+            if (x != NULL_NODE && !adjacent(succ1, u, x))
+                return rejectEdge();
+        }
+        for (int y : pred2[v]) {
+            int x = core_2[y];
+            if (x != NULL_NODE && !adjacent(succ1, x, u))
+                return rejectEdge();
+        }
+
+        if (!cut(u, v))
+            return rejectLookAhead();
+        return true;
+    }
+
+    /**
+     * Adds the pair (prev_1, prev_2) to the mapping.
+     */
+    public void addPair() {
+        core_1[prev_1] = prev_2;
+        core_2[prev_2] = prev_1;
+        core_len++;
+        pairAdded(prev_1, prev_2);
+    }
+
+    /**
+     * Removes the last added pair: the vertex of g1 is given by the order.
+     */
+    public void backTrack() {
+        int u = order[core_len - 1];
+        int v = core_1[u];
+        pairRemoved(u, v);
+
+        core_1[u] = NULL_NODE;
+        core_2[v] = NULL_NODE;
+        core_len--;
+    }
+
+    @Override
+    public void detach() {
+        core_1 = core_1.clone();
+        core_2 = core_2.clone();
+    }
+
+    public void resetPreviousVertices() {
+        prev_1 = prev_2 = NULL_NODE;
+    }
+
+    public abstract boolean isGoal();
+
+    public abstract boolean isDead();
+}
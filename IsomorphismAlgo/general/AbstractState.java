@@ -6,7 +6,10 @@ import org.graph4j.Edge;
 import org.graph4j.iso.IsomorphicGraphMapping;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Abstract class for the state of the search algorithm.
@@ -23,7 +26,7 @@ import java.util.List;
  *
  * @author Ignat Gabriel-Andrei
  */
-public abstract class AbstractState implements State {
+public abstract class AbstractState implements State, MappingView {
     protected OrderedDigraph o1, o2;    // the ordered digraphs
     protected int n1, n2;               // number of vertices in the ordered digraphs
     protected int core_len;         // length of current mapping
@@ -31,12 +34,52 @@ public abstract class AbstractState implements State {
                                     // vertex in the sorted order of the first digraph is mapped
                                     // to the j-th vertex in the sorted order of the second digraph
     protected int[] core_2;         // backward mapping
+    protected SearchStatistics statistics;  // null if the statistics are not collected
 
     public int getCoreLen()
     {
         return core_len;
     }
 
+    /**
+     * The copies of the state share the collector, so it must be set on the initial state.
+     * @param statistics the collector, or null
+     */
+    void setStatistics(SearchStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * The reject...() methods count the reason for which a pair is not feasible and return false,
+     * so they can be used as "return rejectEdge();" in isFeasiblePair().
+     */
+    protected final boolean rejectSemantic() {
+        if (statistics != null)
+            statistics.semanticRejects++;
+        return false;
+    }
+
+    protected final boolean rejectEdge() {
+        if (statistics != null)
+            statistics.edgeRejects++;
+        return false;
+    }
+
+    protected final boolean rejectLookAhead() {
+        if (statistics != null)
+            statistics.lookAheadRejects++;
+        return false;
+    }
+
+    /**
+     * Fills the caches of both ordered digraphs, so that they are only read during the search.
+     * Needed when the same ordered digraphs are shared by several threads.
+     */
+    void fillCaches() {
+        o1.fillCache();
+        o2.fillCache();
+    }
+
     /**
      * Computes the mapping when a complete solution is found.
      * @return isomorphic graph mapping
@@ -46,26 +89,120 @@ public abstract class AbstractState implements State {
         int[] forwardMap = new int[n1];
         int[] backwardMap = new int[n2];
 
-        for (int v1 : o1.getGraph().vertices()) {
-            int index_1 = o1.getVertexOrder(v1);    // index in the sorted list of vertices
+        // iterate by the position in the order, so no lookup of the vertex numbers is needed
+        for (int index_1 = 0; index_1 < n1; index_1++) {
             int index_2 = core_1[index_1];          // index of the mapped vertex in the second digraph
 
             // the index of the vertex in the first digraph is mapped to the vertex in the second digraph
-            forwardMap[o1.getGraph().indexOf(v1)] = o2.getVertexNumber(index_2);
+            forwardMap[o1.getIndexInGraph(index_1)] = o2.getVertexNumber(index_2);
         }
 
-        for (int v2 : o2.getGraph().vertices()) {
-            int index_2 = o2.getVertexOrder(v2);    // index in the sorted list of vertices
+        for (int index_2 = 0; index_2 < n2; index_2++) {
             int index_1 = core_2[index_2];          // index of the mapped vertex in the first digraph
             if (index_1 != NULL_NODE) {
                 // the index of the vertex in the second digraph is mapped to the vertex in the first digraph
-                backwardMap[o2.getGraph().indexOf(v2)] = o1.getVertexNumber(index_1);
+                backwardMap[o2.getIndexInGraph(index_2)] = o1.getVertexNumber(index_1);
             }
         }
 
         return new IsomorphicGraphMapping(forwardMap, backwardMap, o1.getGraph(), o2.getGraph());
     }
 
+    /**
+     * The state itself is the view, so nothing is allocated.
+     */
+    @Override
+    public MappingView getMappingView() {
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return core_len;
+    }
+
+    /**
+     * The pairs follow the order of the first ordered digraph.
+     * The view is used only for goal states, where all the vertices of the first graph are mapped.
+     */
+    @Override
+    public int firstVertex(int i) {
+        return o1.getVertexNumber(i);
+    }
+
+    @Override
+    public int secondVertex(int i) {
+        return o2.getVertexNumber(core_1[i]);
+    }
+
+    @Override
+    public int getVertexCorrespondence(int vertex) {
+        int index_2 = core_1[o1.getVertexOrder(vertex)];
+        return index_2 == NULL_NODE ? NULL_NODE : o2.getVertexNumber(index_2);
+    }
+
+    /**
+     * The labels are used as classes only if all the vertices of both graphs are labelled,
+     * because a missing label is compatible with any other label(see compatibleVertices).
+     * @param label1: filled with the label class of every vertex of the first ordered digraph(0 for all, if not labelled)
+     * @param label2: filled with the label class of every vertex of the second ordered digraph
+     * @return the number of label classes
+     */
+    protected int computeLabelClasses(int[] label1, int[] label2) {
+        Object[] labels1 = new Object[n1];
+        Object[] labels2 = new Object[n2];
+        for (int i = 0; i < n1; i++) {
+            labels1[i] = o1.getVertexLabel(i);
+            if (labels1[i] == null)
+                return 1;
+        }
+        for (int j = 0; j < n2; j++) {
+            labels2[j] = o2.getVertexLabel(j);
+            if (labels2[j] == null)
+                return 1;
+        }
+
+        Map<Object, Integer> classes = new HashMap<>();
+        for (int i = 0; i < n1; i++)
+            label1[i] = classes.computeIfAbsent(labels1[i], k -> classes.size());
+        for (int j = 0; j < n2; j++)
+            label2[j] = classes.computeIfAbsent(labels2[j], k -> classes.size());
+        return Math.max(classes.size(), 1);
+    }
+
+    /**
+     * Color refinement of the two graphs, starting from the label classes(see {@link ColorRefinement}).
+     * Only for exact isomorphism: for subgraph isomorphism, the colors of the two graphs are not comparable.
+     */
+    protected ColorRefinement refineColors() {
+        int[] label1 = new int[n1];
+        int[] label2 = new int[n2];
+        computeLabelClasses(label1, label2);
+        return new ColorRefinement(o1, o2, label1, label2);
+    }
+
+    /**
+     * @return the sorted distinct values(multigraphs repeat the neighbours)
+     */
+    protected static int[] distinct(int[] values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        int size = 0;
+        for (int k = 0; k < sorted.length; k++)
+            if (k == 0 || sorted[k] != sorted[k - 1])
+                sorted[size++] = sorted[k];
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * @param successors: sorted lists of successors, as returned by distinct()
+     * @return true if there is an edge from -> to
+     */
+    protected static boolean adjacent(int[][] successors, int from, int to) {
+        return Arrays.binarySearch(successors[from], to) >= 0;
+    }
+
     /**
      * If the graphs allow self loops, the vertices must have the same number of self loops
      * @param vertexIndex1 the index of a vertex from the ordered digraph 1  (the index in the sorted list of vertices)
@@ -78,13 +215,16 @@ public abstract class AbstractState implements State {
         int node_2 = o2.getVertexNumber(vertexIndex2);
 
         // semantic equivalence
-        if (o1.getGraph().getVertexLabel(node_1) != null && o2.getGraph().getVertexLabel(node_2) != null) {
-            if (!o1.getGraph().getVertexLabel(node_1).equals(o2.getGraph().getVertexLabel(node_2))) {
+        Object label1 = o1.getVertexLabel(vertexIndex1);
+        Object label2 = o2.getVertexLabel(vertexIndex2);
+        if (label1 != null && label2 != null) {
+            if (!label1.equals(label2)) {
                 return false;
             }
         }
 
-        if (o1.getGraph() instanceof DirectedPseudograph ps1 && o2.getGraph() instanceof DirectedPseudograph ps2){
+        // the views without a digraph(e.g. a stored graph) have no self loops
+        if (o1.dg instanceof DirectedPseudograph ps1 && o2.dg instanceof DirectedPseudograph ps2){
             if (ps1.selfLoops(node_1) != ps2.selfLoops(node_2)) {
                 return false;
             }
@@ -137,7 +277,7 @@ public abstract class AbstractState implements State {
         int u2 = o2.getVertexNumber(i2);
         int v2 = o2.getVertexNumber(j2);
 
-        if (o1.getGraph() instanceof DirectedMultigraph mg1 && o2.getGraph() instanceof DirectedMultigraph mg2){
+        if (o1.dg instanceof DirectedMultigraph mg1 && o2.dg instanceof DirectedMultigraph mg2){
             if (mg1.multiplicity(u1, v1) != mg2.multiplicity(u2, v2)) {
                 return false;
             }
@@ -170,9 +310,13 @@ public abstract class AbstractState implements State {
                 }
             }
             return true;
-        } else // not multi edges
-            if (o1.getGraph().getEdgeLabel(u1, v1) != null && o2.getGraph().getEdgeLabel(u2, v2) != null) {
-            return o1.getGraph().getEdgeLabel(u1, v1).equals(o2.getGraph().getEdgeLabel(u2, v2));
+        }
+
+        // not multi edges
+        Object label1 = o1.getEdgeLabel(i1, j1);
+        Object label2 = o2.getEdgeLabel(i2, j2);
+        if (label1 != null && label2 != null) {
+            return label1.equals(label2);
         }
 
         return true;
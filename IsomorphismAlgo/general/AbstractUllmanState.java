@@ -2,9 +2,7 @@ package org.graph4j.iso.general;
 
 import org.graph4j.Digraph;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 
 /**
  * Abstract class for the Ullman's algorithm: exact isomorphism and subgraph isomorphism.
@@ -18,6 +16,14 @@ import java.util.List;
  * <p>
  *     After a pair of vertices is added to the matching, the matrix M is refined, in order to remove the inconsistent pairs, thus reducing the search space.
  * </p>
+ * <p>
+ *     Every entry of M that is marked as incompatible is recorded on a trail, so backTrack() only restores
+ *     the entries changed at the last level.
+ * </p>
+ * <p>
+ *     The number of candidates of every vertex of g1 is kept up to date together with M,
+ *     so the candidates are never collected into lists and isDead() does not scan the matrix.
+ * </p>
  *
  * @author Ignat Gabriel-Andrei
  */
@@ -25,14 +31,29 @@ public abstract class AbstractUllmanState extends AbstractState {
     public static final int COMPATIBLE = 0;     // convention: there is no other value that means compatible
     protected int[][] M;            // compatibility matrix
     protected int prev_1, prev_2;   // previously added vertices
+    protected Trail trail;          // the entries of M marked as incompatible, for restoring the previous states
+    protected int[] candidateCount; // candidateCount[i] = number of COMPATIBLE entries in the row i of M
+    protected boolean emptyRow;     // some unmatched vertex of g1 has no candidate left
+    protected MatchingSemantics semantics = MatchingSemantics.EXACT;   // set by the subclasses
 
     /**
      * @param g1: the first graph, with the vertices ordered by degree
      * @param g2: the second graph, with the vertices ordered by degree
+     * @param cacheMode how the ordered digraphs cache the adjacency relations
      */
-    public AbstractUllmanState(Digraph g1, Digraph g2, boolean cache) {
-        this.o1 = new OrderedDigraph(g1, cache);
-        this.o2 = new OrderedDigraph(g2, cache);
+    public AbstractUllmanState(Digraph g1, Digraph g2, CacheMode cacheMode) {
+        this(new OrderedDigraph(g1, cacheMode), new OrderedDigraph(g2, cacheMode));
+    }
+
+    /**
+     * Constructor for the initial state, from ordered digraphs that are already built(e.g. by a {@link PreparedGraph}).
+     * The ordered digraphs are only read, so they can be shared by several states.
+     * @param o1: the first ordered digraph
+     * @param o2: the second ordered digraph
+     */
+    public AbstractUllmanState(OrderedDigraph o1, OrderedDigraph o2) {
+        this.o1 = o1;
+        this.o2 = o2;
 
         this.n1 = o1.getNumVertices();
         this.n2 = o2.getNumVertices();
@@ -47,6 +68,7 @@ public abstract class AbstractUllmanState extends AbstractState {
         this.prev_1 = this.prev_2 = NULL_NODE;
 
         this.M = new int[n1][n2];
+        this.candidateCount = new int[n1];
 
         for(int i = 0; i < n1; i++){
             for(int j = 0; j < n2; j++){
@@ -55,9 +77,19 @@ public abstract class AbstractUllmanState extends AbstractState {
                 if (exactOrSubgraphIsomorphismCompatibilityCheck(i, j) &&
                         compatibleVertices(i, j)) {
                     this.M[i][j] = COMPATIBLE;
+                    this.candidateCount[i]++;
                 }
             }
+
+            if (this.candidateCount[i] == 0)
+                this.emptyRow = true;
         }
+
+        this.trail = new Trail(n1);
+    }
+
+    public AbstractUllmanState(Digraph g1, Digraph g2, boolean cache) {
+        this(g1, g2, CacheMode.of(cache));
     }
 
     public AbstractUllmanState(Digraph g1, Digraph g2) {
@@ -80,11 +112,41 @@ public abstract class AbstractUllmanState extends AbstractState {
         this.M = s.M;
         this.core_1 = s.core_1;
         this.core_2 = s.core_2;
+        this.trail = s.trail;
+        this.candidateCount = s.candidateCount;
+
+        // the copied state was expanded, so it is not dead, unless it is the initial state
+        this.emptyRow = s.emptyRow;
+        this.semantics = s.semantics;
+        this.statistics = s.statistics;
 
         this.prev_1 = s.prev_1;
         this.prev_2 = s.prev_2;
     }
 
+    /**
+     * Removes the pairs of vertices with different colors from the initial matrix.
+     * If the color histograms differ, the initial state is dead.
+     */
+    protected void restrictToColors(ColorRefinement refinement) {
+        if (!refinement.histogramsEqual()) {
+            this.emptyRow = true;
+            return;
+        }
+
+        int[] color1 = refinement.getColors1();
+        int[] color2 = refinement.getColors2();
+        for (int i = 0; i < n1; i++) {
+            for (int j = 0; j < n2; j++) {
+                if (M[i][j] == COMPATIBLE && color1[i] != color2[j]) {
+                    M[i][j] = NULL_NODE;
+                    if (--candidateCount[i] == 0)
+                        this.emptyRow = true;
+                }
+            }
+        }
+    }
+
     /**
      * Compatibility function for the 2 cases: exact and subgraph isomorphism
      */
@@ -138,42 +200,101 @@ public abstract class AbstractUllmanState extends AbstractState {
 
         // increase the size of the matching
         core_len++;
+        trail.startLevel(core_len);
 
         // in the next steps, we cannot use the same prev_2 vertex for the second graph
         for (int k = core_len; k < n1; k++){
             if (M[k][prev_2] == COMPATIBLE)
-                M[k][prev_2] = core_len;
+                markIncompatible(k, prev_2);
         }
 
+        // the refinement checks only the neighbours, so the non-neighbours are handled here
+        if (semantics == MatchingSemantics.INDUCED)
+            removeNonNeighbourCandidates();
+
         // update the compatibility matrix
         refineState();
     }
 
+    /**
+     * For induced subgraph isomorphism, a vertex of g1 that is not adjacent to prev_1 cannot be mapped
+     * to a vertex of g2 that is adjacent to prev_2
+     */
+    private void removeNonNeighbourCandidates(){
+        int[] succ2 = o2.successors(prev_2);
+        int[] pred2 = o2.predecessors(prev_2);
+
+        for (int k = core_len; k < n1; k++){
+            if (o1.containsEdge(prev_1, k) || o1.containsEdge(k, prev_1))
+                continue;
+
+            for (int j : succ2)
+                if (M[k][j] == COMPATIBLE)
+                    markIncompatible(k, j);
+            for (int j : pred2)
+                if (M[k][j] == COMPATIBLE)
+                    markIncompatible(k, j);
+        }
+    }
+
     /**
      * Removes the candidates of some vertices in g1, after a match is found
      */
     private void refineState(){
+        if (statistics != null)
+            statistics.refinePasses++;
+
         for (int i = core_len; i < n1; i++)                     // for the remaining vertices in g1
             for (int j = 0; j < n2; j++)
                 if (M[i][j] == COMPATIBLE)                     // for all the candidates in g2
-                    if (!existsCandidateNeighbourInSecondGraph(i, j))
-                        M[i][j] = core_len;                          // mark as incompatible
+                    if (!existsCandidateNeighbourInSecondGraph(i, j)) {
+                        markIncompatible(i, j);
+                        if (statistics != null)
+                            statistics.refineRemovals++;
+                    }
+    }
+
+    /**
+     * Marks the pair (i, j) as incompatible at the current level, and records it on the trail
+     */
+    private void markIncompatible(int i, int j){
+        M[i][j] = core_len;
+        trail.push(i, j);
+
+        if (--candidateCount[i] == 0)
+            emptyRow = true;
     }
 
     /**
-     * Return to the previous state
+     * Return to the previous state: only the entries marked incompatible in the last addPair are restored
      */
     public void backTrack(){
-        for (int i = core_len; i < n1; i++){
-            for (int j = 0; j < n2; j++){
-                if (M[i][j] == core_len)     // marked incompatible in the last addPair
-                    M[i][j] = COMPATIBLE;
-            }
-        }
+        trail.undoLevel(core_len, M, candidateCount);
+
+        // the last added vertex is core_len - 1
+        int i = core_len - 1;
+        core_2[core_1[i]] = NULL_NODE;
+        core_1[i] = NULL_NODE;
 
         core_len--;
     }
 
+    /**
+     * The copy constructor only references the arrays, so we clone them here(the matrix M row by row).
+     */
+    @Override
+    public void detach() {
+        int[][] copy = new int[n1][];
+        for (int i = 0; i < n1; i++)
+            copy[i] = M[i].clone();
+        M = copy;
+
+        core_1 = core_1.clone();
+        core_2 = core_2.clone();
+        candidateCount = candidateCount.clone();
+        trail = trail.copy();
+    }
+
     /**
      * After a successful addPair(), we must reinitialize prev_1 and prev_2 in order to find the next pair
      */
@@ -201,6 +322,10 @@ public abstract class AbstractUllmanState extends AbstractState {
      * @return true if the condition is respected, false otherwise
      */
     protected boolean existsCandidateNeighbourInSecondGraph(int i, int j){
+        // for monomorphism(the default of the subgraph states), g2 may have more edges between j and l than g1
+        // between i and k, e.g. both j->l and l->j for the single edge i->k
+        boolean exactEdges = semantics != MatchingSemantics.MONOMORPHISM;
+
         // for every neighbour of i, there must be at least one candidate neighbour of j
         for (int k = 0 ; k < n1 ; k++){
             boolean edge_ik = o1.containsEdge(i, k);
@@ -211,13 +336,17 @@ public abstract class AbstractUllmanState extends AbstractState {
                 continue;
 
             boolean found = false;
-            for (int l : getCandidates(k)){
+            for (int l = nextCandidate(k, 0); l != NULL_NODE; l = nextCandidate(k, l + 1)){
                 boolean edge_jl = o2.containsEdge(j, l);
                 boolean edge_lj = o2.containsEdge(l, j);
 
                 // if edge i->k exists in g1, then must exist at least one edge j->l in g2
                 // same for edge k->i and l->j
-                if (edge_ik != edge_jl || edge_ki != edge_lj)
+                if ((edge_ik && !edge_jl) || (edge_ki && !edge_lj))
+                    continue;
+
+                // and the other way around, unless it is a monomorphism
+                if (exactEdges && (edge_jl && !edge_ik || edge_lj && !edge_ki))
                     continue;
 
                 // if the edges i->k and j->l exist, they must be compatible
@@ -241,17 +370,89 @@ public abstract class AbstractUllmanState extends AbstractState {
         return true;
     }
 
-    protected List<Integer> getCandidates(int i){
-        List<Integer> candidates = new ArrayList<>();
-        if (i < core_len) {
-            candidates.add(core_1[i]);
-            return candidates;
-        }
+    /**
+     * Iterates the candidates of i without allocating: the first candidate is nextCandidate(i, 0),
+     * the one after l is nextCandidate(i, l + 1)
+     *
+     * @param i: node from g1
+     * @param from: the first node from g2 to be considered
+     *
+     * @return the first candidate of i, greater than or equal to from, or NULL_NODE if there is none
+     */
+    protected int nextCandidate(int i, int from){
+        // a matched vertex has only one candidate: its pair
+        if (i < core_len)
+            return core_1[i] >= from ? core_1[i] : NULL_NODE;
 
-        for (int j = 0; j < n2; j++)
+        for (int j = from; j < n2; j++)
             if (M[i][j] == COMPATIBLE)
-                candidates.add(j);
-        return candidates;
+                return j;
+        return NULL_NODE;
     }
-}
 
+    /**
+     * @param i: node from g1
+     * @return the number of candidates of i(1 if i is already matched)
+     */
+    protected int getCandidateCount(int i){
+        return i < core_len ? 1 : candidateCount[i];
+    }
+
+    /**
+     * The counters only decrease while going forward, and a state is expanded only if it is not dead,
+     * so it is enough to remember whether some counter reached 0.
+     *
+     * @return true if there is a vertex of g1 without candidates in g2
+     */
+    protected boolean hasEmptyRow(){
+        return emptyRow;
+    }
+
+    /**
+     * Stack of the pairs (i, j) marked as incompatible, with the position where every level starts.
+     */
+    protected static class Trail {
+        private int[] entries = new int[64];    // the pairs, as consecutive values i, j
+        private int size;
+        private final int[] levelStart;         // levelStart[l] = size of the trail before the changes of level l
+
+        Trail(int levels) {
+            this.levelStart = new int[levels + 1];
+        }
+
+        private Trail(Trail t) {
+            this.entries = t.entries.clone();
+            this.size = t.size;
+            this.levelStart = t.levelStart.clone();
+        }
+
+        void startLevel(int level) {
+            levelStart[level] = size;
+        }
+
+        void push(int i, int j) {
+            if (size + 2 > entries.length)
+                entries = Arrays.copyOf(entries, 2 * entries.length);
+
+            entries[size++] = i;
+            entries[size++] = j;
+        }
+
+        /**
+         * Marks as compatible again the pairs recorded at the given level, restoring the candidate counters.
+         */
+        void undoLevel(int level, int[][] matrix, int[] counts) {
+            int start = levelStart[level];
+            while (size > start) {
+                int j = entries[--size];
+                int i = entries[--size];
+                matrix[i][j] = COMPATIBLE;
+                counts[i]++;
+            }
+        }
+
+        Trail copy() {
+            return new Trail(this);
+        }
+    }
+}
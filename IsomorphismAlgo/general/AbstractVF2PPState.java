@@ -0,0 +1,236 @@
+package org.graph4j.iso.general;
+
+import org.graph4j.Digraph;
+
+/**
+ * Abstract class for the VF2++ algorithm: exact isomorphism and subgraph isomorphism.
+ *
+ * <p>
+ *     Based on the paper "A. Juttner, P. Madarasi, VF2++ - An improved subgraph isomorphism algorithm,
+ *     Discrete Applied Mathematics, 2018 (10.1016/j.dam.2018.02.018)"
+ * </p>
+ * <p>
+ *     Unlike VF2, the vertices of the first graph are matched in a fixed order, computed once for the initial state:
+ *     a BFS from the vertex with the rarest label, where the vertices of a BFS level are taken by the number of
+ *     neighbours already in the order, then by degree, then by the rarity of their label.
+ *     So every vertex(except the roots of the BFS) has a neighbour matched before it, and its candidates are only
+ *     the neighbours of the image of that vertex.
+ * </p>
+ * <p>
+ *     A pair is cut if the degrees are not compatible, or if, for some label, the neighbours of the two vertices that are
+ *     adjacent to the mapping(or not) do not fit.
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public abstract class AbstractVF2PPState extends AbstractOrderedState {
+    protected int[] conn1, conn2;       // number of mapped neighbours of every vertex; positive means 'terminal'
+    protected int[] termCount, newCount;    // counters by label class, used by the cutting rules(always left to 0)
+
+    /**
+     * Constructor for the initial state: computes the label classes and the matching order.
+     * @param g1: the first graph
+     * @param g2: the second graph
+     * @param cacheMode how the ordered digraphs cache the adjacency relations
+     */
+    public AbstractVF2PPState(Digraph g1, Digraph g2, CacheMode cacheMode) {
+        this(new OrderedDigraph(g1, cacheMode), new OrderedDigraph(g2, cacheMode));
+    }
+
+    /**
+     * Constructor for the initial state, from ordered digraphs that are already built(e.g. by a {@link PreparedGraph}).
+     * The ordered digraphs are only read, so they can be shared by several states.
+     * @param o1: the first ordered digraph
+     * @param o2: the second ordered digraph
+     */
+    public AbstractVF2PPState(OrderedDigraph o1, OrderedDigraph o2) {
+        super(o1, o2);
+
+        this.conn1 = new int[n1];
+        this.conn2 = new int[n2];
+        this.termCount = new int[numClasses];
+        this.newCount = new int[numClasses];
+
+        computeMatchingOrder(countClasses(label2));
+    }
+
+    public AbstractVF2PPState(Digraph g1, Digraph g2, boolean cache) {
+        this(g1, g2, CacheMode.of(cache));
+    }
+
+    public AbstractVF2PPState(Digraph g1, Digraph g2) {
+        this(g1, g2, false);
+    }
+
+    /**
+     * Copy constructor: the arrays are just referenced, for memory efficiency.
+     * @param s: the state to be copied
+     */
+    public AbstractVF2PPState(AbstractVF2PPState s) {
+        super(s);
+
+        // the backtrack() method restores them
+        this.conn1 = s.conn1;
+        this.conn2 = s.conn2;
+        this.termCount = s.termCount;
+        this.newCount = s.newCount;
+    }
+
+    /**
+     * Computes the order in which the vertices of g1 are matched, as a sequence of BFS trees.
+     * @param labelCount: the number of vertices of g2 for every label class(modified)
+     */
+    private void computeMatchingOrder(int[] labelCount) {
+        allocateOrder();
+
+        boolean[] inOrder = new boolean[n1];
+        int[] conn = new int[n1];       // number of neighbours already in the order
+        boolean[] visited = new boolean[n1];
+        int[] level = new int[n1];
+        int[] nextLevel = new int[n1];
+        int ordered = 0;
+
+        while (ordered < n1) {
+            // the root: the rarest label, then the largest degree
+            int root = NULL_NODE;
+            for (int i = 0; i < n1; i++) {
+                if (visited[i])
+                    continue;
+                if (root == NULL_NODE || labelCount[label1[i]] < labelCount[label1[root]] ||
+                        (labelCount[label1[i]] == labelCount[label1[root]] && degree(i) > degree(root)))
+                    root = i;
+            }
+
+            visited[root] = true;
+            level[0] = root;
+            int levelSize = 1;
+
+            while (levelSize > 0) {
+                int nextSize = 0;
+                for (int k = 0; k < levelSize; k++) {
+                    for (int x : succ1[level[k]])
+                        if (!visited[x]) { visited[x] = true; nextLevel[nextSize++] = x; }
+                    for (int x : pred1[level[k]])
+                        if (!visited[x]) { visited[x] = true; nextLevel[nextSize++] = x; }
+                }
+
+                // take the vertices of the level one by one: most connected, then largest degree, then rarest label
+                for (int remaining = levelSize; remaining > 0; remaining--) {
+                    int best = 0;
+                    for (int k = 1; k < remaining; k++) {
+                        int u = level[k], b = level[best];
+                        if (conn[u] != conn[b] ? conn[u] > conn[b] :
+                                degree(u) != degree(b) ? degree(u) > degree(b) :
+                                        labelCount[label1[u]] < labelCount[label1[b]])
+                            best = k;
+                    }
+
+                    int u = level[best];
+                    level[best] = level[remaining - 1];
+
+                    order[ordered] = u;
+                    computeParent(ordered, inOrder);
+                    inOrder[u] = true;
+                    ordered++;
+                    labelCount[label1[u]]--;
+
+                    for (int x : succ1[u])
+                        conn[x]++;
+                    for (int x : pred1[u])
+                        conn[x]++;
+                }
+
+                int[] aux = level;
+                level = nextLevel;
+                nextLevel = aux;
+                levelSize = nextSize;
+            }
+        }
+    }
+
+    /**
+     * Label cutting rule: diff is the number of the neighbours of prev_1 minus the number of the neighbours of prev_2,
+     * for a label class, among the terminal or among the new vertices.
+     */
+    protected abstract boolean differenceCompatible(int diff);
+
+    /**
+     * Counts, by label class, the unmapped neighbours of u and v that are terminal(adjacent to the mapping) or new.
+     */
+    @Override
+    protected boolean cut(int u, int v) {
+        countNeighbours(succ1[u], u, core_1, conn1, label1, 1);
+        countNeighbours(pred1[u], u, core_1, conn1, label1, 1);
+        countNeighbours(succ2[v], v, core_2, conn2, label2, -1);
+        countNeighbours(pred2[v], v, core_2, conn2, label2, -1);
+
+        boolean ok = checkCounts(succ1[u], label1) && checkCounts(pred1[u], label1) &&
+                checkCounts(succ2[v], label2) && checkCounts(pred2[v], label2);
+
+        // leave the counters to 0 for the next pair
+        clearCounts(succ1[u], label1);
+        clearCounts(pred1[u], label1);
+        clearCounts(succ2[v], label2);
+        clearCounts(pred2[v], label2);
+        return ok;
+    }
+
+    private void countNeighbours(int[] neighbours, int self, int[] core, int[] conn, int[] label, int delta) {
+        for (int x : neighbours) {
+            if (x == self || core[x] != NULL_NODE)
+                continue;
+            if (conn[x] > 0)
+                termCount[label[x]] += delta;
+            else
+                newCount[label[x]] += delta;
+        }
+    }
+
+    private boolean checkCounts(int[] neighbours, int[] label) {
+        for (int x : neighbours)
+            if (!differenceCompatible(termCount[label[x]]) || !differenceCompatible(newCount[label[x]]))
+                return false;
+        return true;
+    }
+
+    private void clearCounts(int[] neighbours, int[] label) {
+        for (int x : neighbours)
+            termCount[label[x]] = newCount[label[x]] = 0;
+    }
+
+    /**
+     * Updates the number of mapped neighbours.
+     */
+    @Override
+    protected void pairAdded(int u, int v) {
+        for (int x : succ1[u])
+            conn1[x]++;
+        for (int x : pred1[u])
+            conn1[x]++;
+        for (int y : succ2[v])
+            conn2[y]++;
+        for (int y : pred2[v])
+            conn2[y]++;
+    }
+
+    @Override
+    protected void pairRemoved(int u, int v) {
+        for (int x : succ1[u])
+            conn1[x]--;
+        for (int x : pred1[u])
+            conn1[x]--;
+        for (int y : succ2[v])
+            conn2[y]--;
+        for (int y : pred2[v])
+            conn2[y]--;
+    }
+
+    @Override
+    public void detach() {
+        super.detach();
+        conn1 = conn1.clone();
+        conn2 = conn2.clone();
+        termCount = termCount.clone();
+        newCount = newCount.clone();
+    }
+}
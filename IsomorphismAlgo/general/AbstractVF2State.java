@@ -28,15 +28,28 @@ public abstract class AbstractVF2State extends AbstractState {
                                     // positive if it is mapped or marked as ingoing vertex to the partial mapping
     protected int[] out1, out2;
     protected int prev_1, prev_2, last_added1;  // previously added vertices
+    protected MatchingSemantics semantics = MatchingSemantics.EXACT;   // set by the subclasses
+    protected int[] color1, color2;     // only vertices of the same color are paired(null if the colors are not used)
 
     /**
      * Constructor for the initial state of the search algorithm.
      * @param g1: the first graph
      * @param g2: the second graph
+     * @param cacheMode how the ordered digraphs cache the adjacency relations
      */
-    public AbstractVF2State(Digraph g1, Digraph g2, boolean cache) {
-        this.o1 = new OrderedDigraph(g1, cache);
-        this.o2 = new OrderedDigraph(g2, cache);
+    public AbstractVF2State(Digraph g1, Digraph g2, CacheMode cacheMode) {
+        this(new OrderedDigraph(g1, cacheMode), new OrderedDigraph(g2, cacheMode));
+    }
+
+    /**
+     * Constructor for the initial state, from ordered digraphs that are already built(e.g. by a {@link PreparedGraph}).
+     * The ordered digraphs are only read, so they can be shared by several states.
+     * @param o1: the first ordered digraph
+     * @param o2: the second ordered digraph
+     */
+    public AbstractVF2State(OrderedDigraph o1, OrderedDigraph o2) {
+        this.o1 = o1;
+        this.o2 = o2;
 
         this.n1 = o1.getNumVertices();
         this.n2 = o2.getNumVertices();
@@ -57,6 +70,10 @@ public abstract class AbstractVF2State extends AbstractState {
         this.prev_1 = this.prev_2 = this.last_added1 = NULL_NODE;
     }
 
+    public AbstractVF2State(Digraph g1, Digraph g2, boolean cache) {
+        this(g1, g2, CacheMode.of(cache));
+    }
+
     public AbstractVF2State(Digraph g1, Digraph g2) {
         this(g1, g2, false);
     }
@@ -94,6 +111,10 @@ public abstract class AbstractVF2State extends AbstractState {
         this.prev_1 = s.prev_1;
         this.prev_2 = s.prev_2;
         this.last_added1 = NULL_NODE;
+        this.semantics = s.semantics;
+        this.color1 = s.color1;
+        this.color2 = s.color2;
+        this.statistics = s.statistics;
     }
 
     /**
@@ -144,24 +165,41 @@ public abstract class AbstractVF2State extends AbstractState {
         }
 
         // choose the next vertex from the second graph
+        prev_2 = nextCandidate2(prev_2);
+
+        // with colors, skip the candidates of a different color than prev_1
+        if (color1 != null && prev_1 < n1) {
+            while (prev_2 < n2 && color2[prev_2] != color1[prev_1])
+                prev_2 = nextCandidate2(prev_2 + 1);
+        }
+
+        return prev_1 < n1 && prev_2 < n2;
+    }
+
+    /**
+     * @param from the first vertex of the second graph that is checked
+     * @return the first unmapped vertex of the second graph, starting from the given one,
+     * that is in the same terminal set as the chosen vertex of the first graph(n2 if there is none)
+     */
+    private int nextCandidate2(int from) {
+        int j = from;
         if (t1both_len - core_len > 0 && t2both_len - core_len > 0) {
-            while (prev_2 < n2 &&
-                    (core_2[prev_2] != NULL_NODE || out2[prev_2] == 0 || in2[prev_2] == 0))
-                prev_2++;
+            while (j < n2 &&
+                    (core_2[j] != NULL_NODE || out2[j] == 0 || in2[j] == 0))
+                j++;
         } else if (t1out_len - core_len > 0 && t2out_len - core_len > 0) {
-            while (prev_2 < n2 &&
-                    (core_2[prev_2] != NULL_NODE || out2[prev_2] == 0))
-                prev_2++;
+            while (j < n2 &&
+                    (core_2[j] != NULL_NODE || out2[j] == 0))
+                j++;
         } else if (t1in_len - core_len > 0 && t2in_len - core_len > 0) {
-            while (prev_2 < n2 &&
-                    (core_2[prev_2] != NULL_NODE || in2[prev_2] == 0))
-                prev_2++;
+            while (j < n2 &&
+                    (core_2[j] != NULL_NODE || in2[j] == 0))
+                j++;
         } else {
-            while (prev_2 < n2 && core_2[prev_2] != NULL_NODE)
-                prev_2++;
+            while (j < n2 && core_2[j] != NULL_NODE)
+                j++;
         }
-
-        return prev_1 < n1 && prev_2 < n2;
+        return j;
     }
 
     /**
@@ -173,12 +211,17 @@ public abstract class AbstractVF2State extends AbstractState {
      * <p>We also count the number of unmapped and out/in/new vertices.
      * For exact isomorphism, a new pair of candidate vertices are feasible if
      * these numbers are equal: term_in1 with term_in2, term_out1 with term_out2, new_1 with new_2.</p>
+     *
+     * <p>For monomorphism, the edges of g2 between prev_2 and the mapped vertices are not checked against g1,
+     * the neighbours of prev_2 are only counted.</p>
      */
     public boolean isFeasiblePair() {
         if (!compatibleVertices(prev_1, prev_2)) {
-            return false;
+            return rejectSemantic();
         }
 
+        boolean reverseCheck = semantics != MatchingSemantics.MONOMORPHISM;
+
         int term_in1 = 0, term_out1 = 0, new_1 = 0,         // number of unmapped vertices that are going in or out the partial mapping, or neither(meaning they are new)
                 term_in2 = 0, term_out2 = 0, new_2 = 0;
 
@@ -189,7 +232,7 @@ public abstract class AbstractVF2State extends AbstractState {
 
                 if (!o2.containsEdge(prev_2, other2) ||                         //
                         !compatibleEdges(prev_1, other1, prev_2, other2)) {
-                    return false;
+                    return rejectEdge();
                 }
             } else {    // not mapped
                 if (in1[other1] != 0)   // incoming vertex
@@ -208,7 +251,7 @@ public abstract class AbstractVF2State extends AbstractState {
 
                 if (!o2.containsEdge(other2, prev_2) ||
                         !compatibleEdges(other1, prev_1, other2, prev_2)) {
-                    return false;
+                    return rejectEdge();
                 }
             } else {    // not mapped, then update the counters
                 if (in1[other1] != 0)
@@ -225,8 +268,8 @@ public abstract class AbstractVF2State extends AbstractState {
             if (core_2[other2] != NULL_NODE) {
                 int other1 = core_2[other2];
 
-                if (!o1.containsEdge(other1, prev_1)) {
-                    return false;
+                if (reverseCheck && !o1.containsEdge(other1, prev_1)) {
+                    return rejectEdge();
                 }
             } else {
                 if (in2[other2] != 0)
@@ -244,8 +287,8 @@ public abstract class AbstractVF2State extends AbstractState {
             if (core_2[other2] != NULL_NODE) {
                 int other1 = core_2[other2];
 
-                if (!o1.containsEdge(prev_1, other1)) {
-                    return false;
+                if (reverseCheck && !o1.containsEdge(prev_1, other1)) {
+                    return rejectEdge();
                 }
             } else {
                 if (in2[other2] != 0)
@@ -257,7 +300,9 @@ public abstract class AbstractVF2State extends AbstractState {
             }
         }
 
-        return exactOrSubgraphIsomorphismCompatibilityCheck(term_in1, term_out1, term_in2, term_out2, new_1, new_2);
+        if (!exactOrSubgraphIsomorphismCompatibilityCheck(term_in1, term_out1, term_in2, term_out2, new_1, new_2))
+            return rejectLookAhead();
+        return true;
     }
 
     /**
@@ -415,6 +460,20 @@ public abstract class AbstractVF2State extends AbstractState {
 
     public abstract boolean isDead();
 
+    /**
+     * The copy constructor only references the arrays, so we clone them here.
+     */
+    @Override
+    public void detach() {
+        core_1 = core_1.clone();
+        core_2 = core_2.clone();
+
+        in1 = in1.clone();
+        in2 = in2.clone();
+        out1 = out1.clone();
+        out2 = out2.clone();
+    }
+
     public void resetPreviousVertices() {
         prev_1 = prev_2 = NULL_NODE;
     }
@@ -0,0 +1,138 @@
+package org.graph4j.iso.general;
+
+import org.graph4j.Digraph;
+
+import java.util.Arrays;
+
+/**
+ * Abstract class for the VF3-Light algorithm: exact isomorphism and subgraph isomorphism.
+ *
+ * <p>
+ *     Based on the paper "V. Carletti, P. Foggia, A. Greco, M. Vento, V. Vigilante, VF3-Light: A lightweight subgraph
+ *     isomorphism algorithm and its experimental evaluation, Pattern Recognition Letters, 2019 (10.1016/j.patrec.2019.07.001)"
+ * </p>
+ * <p>
+ *     The vertices are split in classes by their label. For every vertex u of the first graph, the probability to find
+ *     a vertex of the second graph that can be mapped to it is estimated as P(label(u)) * P(outdegree >= outdegree(u)) * P(indegree >= indegree(u)).
+ *     The vertices of the first graph are matched in a fixed order: the most connected to the already ordered vertices first,
+ *     then the least probable, then the largest degree.
+ * </p>
+ * <p>
+ *     Unlike VF2, there are no terminal sets: adding or removing a pair only changes the core, and the feasibility of a pair
+ *     is checked only against the mapped vertices. This is faster for small patterns in large sparse graphs.
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public abstract class AbstractVF3LightState extends AbstractOrderedState {
+
+    /**
+     * Constructor for the initial state: computes the label classes and the matching order.
+     * @param g1: the first graph
+     * @param g2: the second graph
+     * @param cacheMode how the ordered digraphs cache the adjacency relations
+     */
+    public AbstractVF3LightState(Digraph g1, Digraph g2, CacheMode cacheMode) {
+        this(new OrderedDigraph(g1, cacheMode), new OrderedDigraph(g2, cacheMode));
+    }
+
+    /**
+     * Constructor for the initial state, from ordered digraphs that are already built(e.g. by a {@link PreparedGraph}).
+     * The ordered digraphs are only read, so they can be shared by several states.
+     * @param o1: the first ordered digraph
+     * @param o2: the second ordered digraph
+     */
+    public AbstractVF3LightState(OrderedDigraph o1, OrderedDigraph o2) {
+        super(o1, o2);
+        computeMatchingOrder(computeProbabilities(countClasses(label2)));
+    }
+
+    public AbstractVF3LightState(Digraph g1, Digraph g2, boolean cache) {
+        this(g1, g2, CacheMode.of(cache));
+    }
+
+    public AbstractVF3LightState(Digraph g1, Digraph g2) {
+        this(g1, g2, false);
+    }
+
+    /**
+     * Copy constructor: the arrays are just referenced, for memory efficiency.
+     * @param s: the state to be copied
+     */
+    public AbstractVF3LightState(AbstractVF3LightState s) {
+        super(s);
+    }
+
+    /**
+     * @param count2: the number of vertices of g2 for every label class
+     * @return for every vertex of g1, the probability that a random vertex of g2 is compatible with it
+     */
+    private double[] computeProbabilities(int[] count2) {
+        // the degrees of g2, sorted, for counting the vertices with a larger degree
+        int[] out2 = new int[n2];
+        int[] in2 = new int[n2];
+        for (int j = 0; j < n2; j++) {
+            out2[j] = succ2[j].length;
+            in2[j] = pred2[j].length;
+        }
+        Arrays.sort(out2);
+        Arrays.sort(in2);
+
+        double[] probability = new double[n1];
+        for (int i = 0; i < n1; i++) {
+            double label = (double) count2[label1[i]] / n2;
+            double out = (double) countAtLeast(out2, succ1[i].length) / n2;
+            double in = (double) countAtLeast(in2, pred1[i].length) / n2;
+            probability[i] = label * out * in;
+        }
+        return probability;
+    }
+
+    /**
+     * @return the number of values greater than or equal to the given value, in a sorted array
+     */
+    private static int countAtLeast(int[] sorted, int value) {
+        int low = 0, high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return sorted.length - low;
+    }
+
+    /**
+     * Computes the order in which the vertices of g1 are matched: the most connected to the ordered vertices,
+     * then the least probable, then the largest degree.
+     */
+    private void computeMatchingOrder(double[] probability) {
+        allocateOrder();
+
+        int[] conn = new int[n1];       // number of neighbours already in the order
+        boolean[] ordered = new boolean[n1];
+
+        for (int d = 0; d < n1; d++) {
+            int best = NULL_NODE;
+            for (int i = 0; i < n1; i++) {
+                if (ordered[i])
+                    continue;
+                if (best == NULL_NODE || (conn[i] != conn[best] ? conn[i] > conn[best] :
+                        probability[i] != probability[best] ? probability[i] < probability[best] :
+                                degree(i) > degree(best)))
+                    best = i;
+            }
+
+            order[d] = best;
+            ordered[best] = true;
+
+            computeParent(d, ordered);
+
+            for (int x : succ1[best])
+                conn[x]++;
+            for (int x : pred1[best])
+                conn[x]++;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.graph4j.iso.general;
+
+import org.graph4j.Digraph;
+import org.graph4j.Graph;
+
+/**
+ * Class for the bit-parallel Ullman algorithm for exact graph isomorphism.
+ *
+ * <p>
+ *     It finds the same mappings as {@link UllmanExactGraphIsomorphism}, but the compatibility matrix is stored
+ *     as bit rows and refined a word at a time. The changes are undone with a trail, instead of rescanning the matrix.
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public class BitUllmanExactGraphIsomorphism extends AbstractGraphIsomorphism {
+    public BitUllmanExactGraphIsomorphism(Graph g1, Graph g2) {
+        super(g1, g2, CacheMode.BITSET);
+    }
+
+    /**
+     * The ordered digraphs of the prepared graphs are reused if they have the bit rows(BITSET, AUTO for dense graphs, or stored graphs).
+     */
+    public BitUllmanExactGraphIsomorphism(PreparedGraph g1, PreparedGraph g2) {
+        super(g1, g2);
+    }
+
+    /**
+     * The bit rows of the adjacency are always needed, so the cache mode is ignored.
+     */
+    @Override
+    protected State getStateInstance(Digraph g1, Digraph g2, CacheMode cacheMode) {
+        return new BitUllmanExactState(g1, g2);
+    }
+
+    @Override
+    protected State getStateInstance(OrderedDigraph o1, OrderedDigraph o2) {
+        // only the in-memory graphs prepared with another cache mode have no bit rows, they are rebuilt from their digraphs
+        if (!o1.hasBitRows() || !o2.hasBitRows())
+            return super.getStateInstance(o1, o2);
+        return new BitUllmanExactState(o1, o2);
+    }
+
+    @Override
+    protected boolean preparedGraphsCompatible() {
+        return prepared1.mayBeIsomorphicTo(prepared2);
+    }
+
+    @Override
+    protected State getNewStateInstance(State s) {
+        return new BitUllmanExactState((BitUllmanExactState) s);
+    }
+}
@@ -0,0 +1,50 @@
+package org.graph4j.iso.general;
+
+import org.graph4j.Digraph;
+
+/**
+ * Class for the bit-parallel Ullman algorithm for exact graph isomorphism.
+ * Two vertices are compatible if they have the same degree and same labels.
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public class BitUllmanExactState extends AbstractBitUllmanState {
+    public BitUllmanExactState(Digraph g1, Digraph g2) {
+        super(g1, g2);
+    }
+
+    public BitUllmanExactState(OrderedDigraph o1, OrderedDigraph o2) {
+        super(o1, o2);
+    }
+
+    public BitUllmanExactState(BitUllmanExactState s) {
+        super(s);
+    }
+
+    /**
+     * For exact isomorphism, two vertices are compatible if they have the same degree.
+     */
+    @Override
+    public boolean exactOrSubgraphIsomorphismCompatibilityCheck(int vertexIndex1, int vertexIndex2) {
+        return o1.indegree(vertexIndex1) == o2.indegree(vertexIndex2) &&
+                o1.outdegree(vertexIndex1) == o2.outdegree(vertexIndex2);
+    }
+
+    /**
+     * For exact isomorphism, a mapping is complete when all vertices from both graphs are mapped.
+     */
+    @Override
+    public boolean isGoal() {
+        return core_len == n1 && core_len == n2;
+    }
+
+    /**
+     * A partial mapping is "dead" if there is a vertex from the first graph that
+     * has no compatible vertex in the second graph.
+     */
+    @Override
+    public boolean isDead() {
+        // if the graphs have different number of vertices, there is no isomorphism
+        return n1 != n2 || hasEmptyRow();
+    }
+}
@@ -0,0 +1,54 @@
+package org.graph4j.iso.general;
+
+import org.graph4j.Digraph;
+
+/**
+ * Class for the bit-parallel Ullman algorithm for subgraph isomorphism.
+ * Two vertices are compatible if the degree in the first graph is less than or
+ * equal to the degree in the second graph.
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public class BitUllmanSubState extends AbstractBitUllmanState {
+    public BitUllmanSubState(Digraph g1, Digraph g2) {
+        super(g1, g2);
+        this.semantics = MatchingSemantics.MONOMORPHISM;
+    }
+
+    public BitUllmanSubState(OrderedDigraph o1, OrderedDigraph o2) {
+        super(o1, o2);
+        this.semantics = MatchingSemantics.MONOMORPHISM;
+    }
+
+    public BitUllmanSubState(BitUllmanSubState s) {
+        super(s);
+    }
+
+    /**
+     * For subgraph isomorphism, two vertices are compatible if the degree in the first graph is less than or
+     * equal to the degree in the second graph.
+     */
+    @Override
+    public boolean exactOrSubgraphIsomorphismCompatibilityCheck(int vertexIndex1, int vertexIndex2) {
+        return o1.indegree(vertexIndex1) <= o2.indegree(vertexIndex2) &&
+                o1.outdegree(vertexIndex1) <= o2.outdegree(vertexIndex2);
+    }
+
+    /**
+     * For subgraph isomorphism, a mapping is complete when all vertices from the first graph are mapped.
+     */
+    @Override
+    public boolean isGoal() {
+        return core_len == n1;
+    }
+
+    /**
+     * A partial mapping is "dead" if there is a vertex from the first graph that has no
+     * compatible vertex in the second graph.
+     */
+    @Override
+    public boolean isDead() {
+        // if the first graph has more vertices than the second graph, there is no subgraph isomorphism
+        return n1 > n2 || hasEmptyRow();
+    }
+}
@@ -0,0 +1,51 @@
+package org.graph4j.iso.general;
+
+/**
+ * How the ordered digraphs cache the adjacency relations of the vertices.
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public enum CacheMode {
+    /**
+     * No cache: every query(successors, predecessors, edges) goes to the digraph.
+     */
+    NONE,
+
+    /**
+     * Lazily filled n x n adjacency matrix, plus the lists of successors/predecessors.
+     * Fastest for small graphs, but the memory is quadratic in the number of vertices.
+     */
+    MATRIX,
+
+    /**
+     * Immutable snapshot built upfront: sorted lists of successors/predecessors in the order of the vertices.
+     * The memory is linear in the size of the graph, and an edge is checked by binary search.
+     */
+    SPARSE,
+
+    /**
+     * Same lists as SPARSE, plus the adjacency matrix stored as bit rows(long[] words), built upfront.
+     * An edge is checked with a single bit test, and the rows can be combined a word at a time.
+     * Suited for dense graphs: the memory is n * n / 8 bytes.
+     */
+    BITSET,
+
+    /**
+     * BITSET for dense graphs(density at least {@link #DENSE_THRESHOLD}), SPARSE otherwise.
+     * The choice is made for every graph separately.
+     */
+    AUTO;
+
+    /**
+     * The density(edges / (n * (n - 1))) from which AUTO uses the bit rows.
+     */
+    public static final double DENSE_THRESHOLD = 0.3;
+
+    /**
+     * @param cache the cache flag used by the constructors
+     * @return MATRIX if the cache is enabled, NONE otherwise
+     */
+    public static CacheMode of(boolean cache) {
+        return cache ? MATRIX : NONE;
+    }
+}
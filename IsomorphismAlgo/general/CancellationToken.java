@@ -0,0 +1,26 @@
+package org.graph4j.iso.general;
+
+/**
+ * Token for cancelling a search from another thread(e.g. when the caller is no longer interested in the result).
+ *
+ * <p>
+ *     The search checks the token cooperatively, so it stops shortly after {@link #cancel()} is called,
+ *     not immediately. A token can be shared by several searches.
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public class CancellationToken {
+    private volatile boolean cancelled;
+
+    /**
+     * Asks the searches that use this token to stop.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,329 @@
+package org.graph4j.iso.general;
+
+import java.util.Arrays;
+
+/**
+ * Color refinement(1-dimensional Weisfeiler-Leman) of two ordered digraphs, used before the exact isomorphism search.
+ *
+ * <p>
+ *     The two graphs are refined together, as a single disjoint union, so the colors are comparable between them.
+ *     Initially the vertices are colored by their label class, then a color class is split while its vertices have
+ *     different numbers of successors or predecessors of some color. When no class can be split(the coloring is stable),
+ *     an isomorphism can only map a vertex to a vertex of the same color, so:
+ * </p>
+ * <ul>
+ *     <li>if a color has a different number of vertices in the two graphs, they are not isomorphic</li>
+ *     <li>otherwise, the candidates of every vertex are only the vertices of the same color</li>
+ * </ul>
+ * <p>
+ *     Based on "A. Cardon, M. Crochemore, Partitioning a graph in O(|A| log2 |V|), Theoretical Computer Science, 1982":
+ *     every class is used as a splitter, but when a class that was already used is split, the largest part
+ *     is not used again. Time complexity: O((n + m) log n).
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public class ColorRefinement {
+    private final int n1, n2;
+    private final int[][] successors;   // the union: the vertex i of g1 is i, the vertex j of g2 is n1 + j
+    private final int[][] predecessors;
+
+    private final int[] elements;       // the vertices, grouped by class
+    private final int[] position;       // position[v] = the position of v in elements
+    private final int[] classOf;
+    private final int[] classStart, classEnd;   // the range of every class in elements
+    private int numClasses;
+
+    private final int[] queue;          // the classes that are not used as splitters yet
+    private final boolean[] inQueue;
+    private int queueHead, queueSize;
+
+    // used while splitting
+    private final int[] count;          // the number of edges from a vertex to the splitter
+    private final int[] touched;        // the vertices with count > 0
+    private final int[] nextTouched;    // linked lists of the touched vertices, by class
+    private final int[] firstTouched;
+    private final int[] touchedClasses;
+
+    private final boolean histogramsEqual;
+
+    /**
+     * Refines the colors of the two graphs.
+     * @param o1 the first ordered digraph
+     * @param o2 the second ordered digraph
+     * @param label1 the initial class of every vertex of o1(e.g. computed by {@link AbstractState#computeLabelClasses})
+     * @param label2 the initial class of every vertex of o2
+     */
+    public ColorRefinement(OrderedDigraph o1, OrderedDigraph o2, int[] label1, int[] label2) {
+        this.n1 = o1.getNumVertices();
+        this.n2 = o2.getNumVertices();
+        int n = n1 + n2;
+
+        this.successors = new int[n][];
+        this.predecessors = new int[n][];
+        for (int i = 0; i < n1; i++) {
+            successors[i] = o1.successors(i);
+            predecessors[i] = o1.predecessors(i);
+        }
+        for (int j = 0; j < n2; j++) {
+            successors[n1 + j] = shift(o2.successors(j), n1);
+            predecessors[n1 + j] = shift(o2.predecessors(j), n1);
+        }
+
+        this.elements = new int[n];
+        this.position = new int[n];
+        this.classOf = new int[n];
+        this.classStart = new int[n + 1];
+        this.classEnd = new int[n + 1];
+        this.queue = new int[n + 1];
+        this.inQueue = new boolean[n + 1];
+
+        this.count = new int[n];
+        this.touched = new int[n];
+        this.nextTouched = new int[n];
+        this.firstTouched = new int[n + 1];
+        this.touchedClasses = new int[n + 1];
+        Arrays.fill(firstTouched, -1);
+
+        initialClasses(label1, label2);
+        refine();
+
+        this.histogramsEqual = compareHistograms();
+    }
+
+    private static int[] shift(int[] vertices, int offset) {
+        int[] shifted = new int[vertices.length];
+        for (int k = 0; k < vertices.length; k++)
+            shifted[k] = vertices[k] + offset;
+        return shifted;
+    }
+
+    /**
+     * One class for every label, all of them in the queue.
+     */
+    private void initialClasses(int[] label1, int[] label2) {
+        int n = n1 + n2;
+        int labels = 0;
+        for (int i = 0; i < n1; i++)
+            labels = Math.max(labels, label1[i] + 1);
+        for (int j = 0; j < n2; j++)
+            labels = Math.max(labels, label2[j] + 1);
+
+        // counting sort of the vertices by label
+        int[] start = new int[labels + 1];
+        for (int v = 0; v < n; v++)
+            start[label(v, label1, label2) + 1]++;
+        for (int c = 0; c < labels; c++)
+            start[c + 1] += start[c];
+
+        int[] next = start.clone();
+        for (int v = 0; v < n; v++) {
+            int c = label(v, label1, label2);
+            elements[next[c]] = v;
+            position[v] = next[c]++;
+        }
+
+        for (int c = 0; c < labels; c++) {
+            if (start[c] == start[c + 1])
+                continue;
+            int id = numClasses++;
+            classStart[id] = start[c];
+            classEnd[id] = start[c + 1];
+            for (int p = start[c]; p < start[c + 1]; p++)
+                classOf[elements[p]] = id;
+            enqueue(id);
+        }
+    }
+
+    private int label(int v, int[] label1, int[] label2) {
+        return v < n1 ? label1[v] : label2[v - n1];
+    }
+
+    private void enqueue(int c) {
+        queue[(queueHead + queueSize++) % queue.length] = c;
+        inQueue[c] = true;
+    }
+
+    private int dequeue() {
+        int c = queue[queueHead];
+        queueHead = (queueHead + 1) % queue.length;
+        queueSize--;
+        inQueue[c] = false;
+        return c;
+    }
+
+    private void refine() {
+        int[] splitter = new int[n1 + n2];
+
+        while (queueSize > 0) {
+            int s = dequeue();
+
+            // the class may be split while it is used, so its vertices are copied
+            int size = classEnd[s] - classStart[s];
+            System.arraycopy(elements, classStart[s], splitter, 0, size);
+
+            // the vertices are split by their number of successors in the splitter, then by the number of predecessors
+            split(splitter, size, predecessors);
+            split(splitter, size, successors);
+        }
+    }
+
+    /**
+     * Splits the classes by the number of edges to the splitter.
+     * @param neighbours predecessors, for counting the successors in the splitter(and the other way around)
+     */
+    private void split(int[] splitter, int size, int[][] neighbours) {
+        int numTouched = 0;
+        for (int k = 0; k < size; k++) {
+            for (int v : neighbours[splitter[k]]) {
+                if (count[v]++ == 0)
+                    touched[numTouched++] = v;
+            }
+        }
+
+        // group the touched vertices by class
+        int numTouchedClasses = 0;
+        for (int k = 0; k < numTouched; k++) {
+            int v = touched[k];
+            int c = classOf[v];
+            if (firstTouched[c] == -1)
+                touchedClasses[numTouchedClasses++] = c;
+            nextTouched[v] = firstTouched[c];
+            firstTouched[c] = v;
+        }
+
+        for (int k = 0; k < numTouchedClasses; k++) {
+            int c = touchedClasses[k];
+            splitClass(c);
+            firstTouched[c] = -1;
+        }
+
+        for (int k = 0; k < numTouched; k++)
+            count[touched[k]] = 0;
+    }
+
+    /**
+     * Splits the class c by the counts of its vertices: the untouched vertices(count 0) stay at the start of the range,
+     * the touched ones are moved at the end, sorted by count.
+     */
+    private void splitClass(int c) {
+        int start = classStart[c], end = classEnd[c];
+
+        int t = 0;
+        for (int v = firstTouched[c]; v != -1; v = nextTouched[v])
+            t++;
+
+        long[] keys = new long[t];
+        int k = 0;
+        for (int v = firstTouched[c]; v != -1; v = nextTouched[v])
+            keys[k++] = ((long) count[v] << 32) | v;
+        Arrays.sort(keys);
+
+        // nothing to split: all the vertices have the same count
+        if (t == end - start && (keys[0] >>> 32) == (keys[t - 1] >>> 32))
+            return;
+
+        // move the touched vertices at the end of the range, sorted by count
+        int boundary = end - t;
+        for (int p = 0; p < t; p++)
+            swap(position[(int) keys[p]], boundary + p);
+
+        // the parts: [start, boundary) if not empty, then one part for every count
+        boolean wasQueued = inQueue[c];
+        int largest = -1, largestSize = 0;
+        int partStart = start;
+        int id = c;
+        boolean first = true;
+        while (partStart < end) {
+            int partEnd;
+            if (partStart < boundary) {
+                partEnd = boundary;
+            } else {
+                partEnd = partStart + 1;
+                long value = keys[partStart - boundary] >>> 32;
+                while (partEnd < end && (keys[partEnd - boundary] >>> 32) == value)
+                    partEnd++;
+            }
+
+            if (!first) {
+                id = numClasses++;
+                for (int p = partStart; p < partEnd; p++)
+                    classOf[elements[p]] = id;
+            }
+            classStart[id] = partStart;
+            classEnd[id] = partEnd;
+
+            if (wasQueued) {
+                if (id != c)
+                    enqueue(id);
+            } else if (partEnd - partStart > largestSize) {
+                largest = id;
+                largestSize = partEnd - partStart;
+            }
+
+            first = false;
+            partStart = partEnd;
+        }
+
+        // the class was already used as a splitter: the largest part is implied by the others
+        if (!wasQueued) {
+            for (int p = start; p < end; p = classEnd[classOf[elements[p]]]) {
+                int part = classOf[elements[p]];
+                if (part != largest)
+                    enqueue(part);
+            }
+        }
+    }
+
+    private void swap(int p, int q) {
+        int v = elements[p], w = elements[q];
+        elements[p] = w;
+        position[w] = p;
+        elements[q] = v;
+        position[v] = q;
+    }
+
+    /**
+     * @return true if every class has the same number of vertices in both graphs
+     */
+    private boolean compareHistograms() {
+        if (n1 != n2)
+            return false;
+
+        int[] balance = new int[numClasses];
+        for (int v = 0; v < n1; v++)
+            balance[classOf[v]]++;
+        for (int v = n1; v < n1 + n2; v++)
+            balance[classOf[v]]--;
+
+        for (int c = 0; c < numClasses; c++)
+            if (balance[c] != 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * @return false if the graphs are surely not isomorphic
+     */
+    public boolean histogramsEqual() {
+        return histogramsEqual;
+    }
+
+    public int getNumColors() {
+        return numClasses;
+    }
+
+    /**
+     * @return the color of every vertex of the first ordered digraph
+     */
+    public int[] getColors1() {
+        return Arrays.copyOfRange(classOf, 0, n1);
+    }
+
+    /**
+     * @return the color of every vertex of the second ordered digraph
+     */
+    public int[] getColors2() {
+        return Arrays.copyOfRange(classOf, n1, n1 + n2);
+    }
+}
@@ -2,8 +2,10 @@ package org.graph4j.iso.general;
 
 import org.graph4j.iso.IsomorphicGraphMapping;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface class for graph isomorphism
@@ -14,4 +16,6 @@ public interface GraphIsomorphism {
     boolean areIsomorphic();
     List<IsomorphicGraphMapping> getAllMappings();
     Optional<IsomorphicGraphMapping> getMapping();
+    Iterator<IsomorphicGraphMapping> mappingIterator();
+    Stream<IsomorphicGraphMapping> mappingStream();
 }
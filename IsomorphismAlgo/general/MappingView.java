@@ -0,0 +1,36 @@
+package org.graph4j.iso.general;
+
+/**
+ * Read-only view of the mapping of a goal state, in the original vertex numbers.
+ *
+ * <p>
+ *     The view does not copy the mapping, so it is valid only while the search is paused at that state
+ *     (e.g. during a call of {@link MatchVisitor#visit(MappingView)}).
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public interface MappingView {
+    /**
+     * @return the number of mapped pairs of vertices
+     */
+    int size();
+
+    /**
+     * @param i the position of the pair, between 0 and size() - 1
+     * @return the vertex of the first graph from the i-th pair
+     */
+    int firstVertex(int i);
+
+    /**
+     * @param i the position of the pair, between 0 and size() - 1
+     * @return the vertex of the second graph from the i-th pair(the one mapped to firstVertex(i))
+     */
+    int secondVertex(int i);
+
+    /**
+     * @param vertex a vertex of the first graph
+     * @return the vertex of the second graph that it is mapped to
+     */
+    int getVertexCorrespondence(int vertex);
+}
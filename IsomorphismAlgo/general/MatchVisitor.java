@@ -0,0 +1,15 @@
+package org.graph4j.iso.general;
+
+/**
+ * Callback that is called for every mapping found by the search, without building an IsomorphicGraphMapping.
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+@FunctionalInterface
+public interface MatchVisitor {
+    /**
+     * @param mapping read-only view of the found mapping, valid only during this call
+     * @return true if the search must continue, false if it must stop
+     */
+    boolean visit(MappingView mapping);
+}
@@ -0,0 +1,25 @@
+package org.graph4j.iso.general;
+
+/**
+ * The relation between the edges of the two graphs that a mapping must respect.
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public enum MatchingSemantics {
+    /**
+     * Graph isomorphism: all the vertices of both graphs are mapped, the edges and the non-edges are preserved.
+     */
+    EXACT,
+
+    /**
+     * Induced subgraph isomorphism: the first graph is mapped to an induced subgraph of the second one,
+     * so the edges and the non-edges between the mapped vertices are preserved.
+     */
+    INDUCED,
+
+    /**
+     * Monomorphism(non-induced subgraph isomorphism): only the edges of the first graph must be preserved,
+     * the second graph may have extra edges between the mapped vertices.
+     */
+    MONOMORPHISM
+}
@@ -13,6 +13,7 @@ import java.util.*;
  * </p>
  * <p>
  *     Also, this class caches(if wanted) the predecessors, successors, and edges of the vertices, for a faster access.
+ *     See {@link CacheMode} for the available caches.
  * </p>
  *
  * @author Ignat Gabriel-Andrei
@@ -24,19 +25,24 @@ public class OrderedDigraph {
     int[][] successors;         // cache for the successors
     Edge[][] edges;             // cache for the edges
     byte[][] adjMatrix;         // cache for the adjacency matrix
+    long[][] successorBits;     // cache for the adjacency matrix, as bit rows: bit j of row i is set if i -> j
+    long[][] predecessorBits;   // the transposed bit rows: bit j of row i is set if j -> i
     int[] orderToVertex;
-    Map<Integer, Integer> vertexToOrder;
-    boolean cache;
+    int[] orderToIndex;         // orderToIndex[i] = the index in the digraph of the vertex at position i in the order
+    int[] indexToOrder;         // indexToOrder[dg.indexOf(v)] = the position of vertex v in the order
+    final CacheMode cacheMode;
+    final boolean cache;        // true if the lazy adjacency matrix is used
 
     /**
      * Constructor that orders the vertices of the given digraph according to their degree.
      * @param dg the digraph to be ordered and possibly cached
-     * @param cache if true, the algorithm will cache the predecessors, successors, the adjacency relations
+     * @param cacheMode how the predecessors, successors, the adjacency relations are cached
      */
-    public OrderedDigraph(Digraph dg, boolean cache) {
+    public OrderedDigraph(Digraph dg, CacheMode cacheMode) {
         this.dg = dg;
         this.n = dg.numVertices();
-        this.cache = cache;
+        this.cacheMode = cacheMode == CacheMode.AUTO ? chooseCacheMode(dg) : cacheMode;
+        this.cache = this.cacheMode == CacheMode.MATRIX;
 
 //        List<Integer> vertexList = IntArrays.asList(VertexOrderings.largestDegreeFirst(dg));
 
@@ -50,14 +56,18 @@ public class OrderedDigraph {
         vertexList.sort(vertexComparator);
 
 
-        // transform list to array
+        // transform list to arrays, indexed by the position in the order and by the index in the digraph
+        // (the indices in the digraph are dense, unlike the vertex numbers, so no map is needed)
         orderToVertex = new int[n];
-        vertexToOrder = new HashMap<>();
+        orderToIndex = new int[n];
+        indexToOrder = new int[n];
 
         for (int i = 0; i < n; i++) {
             int v = vertexList.get(i);
+            int index = dg.indexOf(v);
             orderToVertex[i] = v;       // at index i in the sorted list is found vertex v
-            vertexToOrder.put(v, i);    // vertex v is at position i in the sorted list
+            orderToIndex[i] = index;
+            indexToOrder[index] = i;    // vertex v is at position i in the sorted list
         }
 
         if (cache) {
@@ -68,7 +78,64 @@ public class OrderedDigraph {
             edges = new Edge[n][n];
             predecessors = new int[n][];
             successors = new int[n][];
+        } else if (this.cacheMode == CacheMode.SPARSE || this.cacheMode == CacheMode.BITSET) {
+            // the lists are sorted, so an edge can be found by binary search
+            predecessors = new int[n][];
+            successors = new int[n][];
+            for (int i = 0; i < n; i++) {
+                predecessors[i] = toOrderIndices(dg.predecessors(orderToVertex[i]));
+                successors[i] = toOrderIndices(dg.successors(orderToVertex[i]));
+                Arrays.sort(predecessors[i]);
+                Arrays.sort(successors[i]);
+            }
+        }
+
+        if (this.cacheMode == CacheMode.BITSET) {
+            int words = (n + 63) >>> 6;
+            successorBits = new long[n][words];
+            predecessorBits = new long[n][words];
+            for (int i = 0; i < n; i++) {
+                for (int j : successors[i]) {
+                    successorBits[i][j >>> 6] |= 1L << j;
+                    predecessorBits[j][i >>> 6] |= 1L << i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructor for the views that are not backed by a graph4j digraph(e.g. a graph read from a file),
+     * with the SPARSE cache mode. The subclass must override every method that reads the digraph or the caches,
+     * and the digraph is returned by {@link #getGraph()} only if it is requested(e.g. for building a mapping).
+     * @param n the number of vertices
+     */
+    protected OrderedDigraph(int n) {
+        this.dg = null;
+        this.n = n;
+        this.cacheMode = CacheMode.SPARSE;
+        this.cache = false;
+    }
+
+    /**
+     * @param dg a digraph
+     * @return BITSET if the digraph is dense, SPARSE otherwise
+     */
+    private static CacheMode chooseCacheMode(Digraph dg) {
+        long n = dg.numVertices();
+        if (n < 2) {
+            return CacheMode.SPARSE;
         }
+
+        double density = (double) dg.numEdges() / (n * (n - 1));
+        return density >= CacheMode.DENSE_THRESHOLD ? CacheMode.BITSET : CacheMode.SPARSE;
+    }
+
+    /**
+     * @param dg the digraph to be ordered and possibly cached
+     * @param cache if true, the algorithm will cache the predecessors, successors, the adjacency relations
+     */
+    public OrderedDigraph(Digraph dg, boolean cache) {
+        this(dg, CacheMode.of(cache));
     }
 
     public OrderedDigraph(Digraph dg) {
@@ -105,7 +172,15 @@ public class OrderedDigraph {
      * @return the index of the vertex in the sorted list of vertices
      */
     public int getVertexOrder(int vertexNumber) {
-        return vertexToOrder.get(vertexNumber);
+        return indexToOrder[dg.indexOf(vertexNumber)];
+    }
+
+    /**
+     * @param vertexIndex the order in the sorted list of vertices
+     * @return the index of the vertex in the digraph(the position in dg.vertices())
+     */
+    public int getIndexInGraph(int vertexIndex) {
+        return orderToIndex[vertexIndex];
     }
 
     /**
@@ -122,6 +197,10 @@ public class OrderedDigraph {
             return edges[vertexIndex1][vertexIndex2];
         }
 
+        if ((cacheMode == CacheMode.SPARSE || cacheMode == CacheMode.BITSET) && !containsEdge(vertexIndex1, vertexIndex2)) {
+            return null;
+        }
+
         int v1 = getVertexNumber(vertexIndex1);
         int v2 = getVertexNumber(vertexIndex2);
         return dg.edge(v1, v2);
@@ -133,18 +212,12 @@ public class OrderedDigraph {
      */
     public int[] predecessors(int vertexIndex) {
         // if cache is enabled, check if the predecessors were already cached
-        if (cache && predecessors[vertexIndex] != null) {
+        if (predecessors != null && predecessors[vertexIndex] != null) {
             return predecessors[vertexIndex];
         }
 
         int v = getVertexNumber(vertexIndex);
-        int[] predVertices = dg.predecessors(v);
-        int[] predIndices = new int[predVertices.length];
-
-        int i = 0;
-        for (int pred : predVertices) {
-            predIndices[i++] = getVertexOrder(pred);
-        }
+        int[] predIndices = toOrderIndices(dg.predecessors(v));
 
         if (cache) {
             predecessors[vertexIndex] = predIndices;
@@ -158,19 +231,12 @@ public class OrderedDigraph {
      */
     public int[] successors(int vertexIndex) {
         // if cache is enabled, check if the successors were already cached
-        if (cache && successors[vertexIndex] != null) {
+        if (successors != null && successors[vertexIndex] != null) {
             return successors[vertexIndex];
         }
 
         int v = getVertexNumber(vertexIndex);
-
-        int[] successorVertices = dg.successors(v);
-        int[] sucIndices = new int[successorVertices.length];
-
-        int i = 0;
-        for (int suc : successorVertices) {
-            sucIndices[i++] = getVertexOrder(suc);
-        }
+        int[] sucIndices = toOrderIndices(dg.successors(v));
 
         if (cache) {
             successors[vertexIndex] = sucIndices;
@@ -178,6 +244,53 @@ public class OrderedDigraph {
         return sucIndices;
     }
 
+    /**
+     * @return true if the bit rows are available({@link #successorBits(int)}, {@link #predecessorBits(int)}),
+     * i.e. with the BITSET cache
+     */
+    public boolean hasBitRows() {
+        return cacheMode == CacheMode.BITSET;
+    }
+
+    /**
+     * Available only if {@link #hasBitRows()}. The row must not be modified.
+     * @param vertexIndex the index of the vertex in the sorted list of vertices
+     * @return the successors of the vertex as a bit row(bit j is set if j is a successor)
+     */
+    public long[] successorBits(int vertexIndex) {
+        return successorBits[vertexIndex];
+    }
+
+    /**
+     * Available only if {@link #hasBitRows()}. The row must not be modified.
+     * @param vertexIndex the index of the vertex in the sorted list of vertices
+     * @return the predecessors of the vertex as a bit row(bit j is set if j is a predecessor)
+     */
+    public long[] predecessorBits(int vertexIndex) {
+        return predecessorBits[vertexIndex];
+    }
+
+    /**
+     * @return the cache mode that is used(AUTO is resolved to SPARSE or BITSET)
+     */
+    public CacheMode getCacheMode() {
+        return cacheMode;
+    }
+
+    /**
+     * @param vertices vertex numbers of the digraph
+     * @return the positions of the vertices in the order
+     */
+    private int[] toOrderIndices(int[] vertices) {
+        int[] indices = new int[vertices.length];
+
+        int i = 0;
+        for (int v : vertices) {
+            indices[i++] = getVertexOrder(v);
+        }
+        return indices;
+    }
+
     /**
      * Checks if there is an edge between the two vertices.
      * @param vertexIndex1 the index of the source vertex in the sorted list of vertices
@@ -185,6 +298,19 @@ public class OrderedDigraph {
      * @return true if there is an edge between the two vertices, false otherwise
      */
     public boolean containsEdge(int vertexIndex1, int vertexIndex2) {
+        if (cacheMode == CacheMode.BITSET) {
+            return (successorBits[vertexIndex1][vertexIndex2 >>> 6] & (1L << vertexIndex2)) != 0;
+        }
+
+        if (cacheMode == CacheMode.SPARSE) {
+            // search in the shorter of the two sorted lists
+            int[] suc = successors[vertexIndex1];
+            int[] pred = predecessors[vertexIndex2];
+            return suc.length <= pred.length ?
+                    Arrays.binarySearch(suc, vertexIndex2) >= 0 :
+                    Arrays.binarySearch(pred, vertexIndex1) >= 0;
+        }
+
         int v1 = getVertexNumber(vertexIndex1);
         int v2 = getVertexNumber(vertexIndex2);
 
@@ -203,6 +329,49 @@ public class OrderedDigraph {
         }
     }
 
+    /**
+     * Computes upfront everything that would otherwise be cached lazily: predecessors, successors,
+     * the adjacency matrix and the edges.
+     * After this call, the cache is never written again, so it can be safely shared between threads.
+     * The sparse cache is already built by the constructor.
+     */
+    public void fillCache() {
+        if (!cache) {
+            return;
+        }
+
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(adjMatrix[i], (byte) -1);
+        }
+
+        for (int i = 0; i < n; i++) {
+            predecessors(i);
+
+            int v1 = getVertexNumber(i);
+            for (int j : successors(i)) {
+                adjMatrix[i][j] = (byte) 1;
+                edges[i][j] = dg.edge(v1, getVertexNumber(j));
+            }
+        }
+    }
+
+    /**
+     * @param vertexIndex the index of the vertex in the sorted list of vertices
+     * @return the label of the vertex, or null if it has none
+     */
+    public Object getVertexLabel(int vertexIndex) {
+        return dg.getVertexLabel(getVertexNumber(vertexIndex));
+    }
+
+    /**
+     * @param vertexIndex1 the index of the source vertex in the sorted list of vertices
+     * @param vertexIndex2 the index of the target vertex in the sorted list of vertices
+     * @return the label of the edge, or null if it has none
+     */
+    public Object getEdgeLabel(int vertexIndex1, int vertexIndex2) {
+        return dg.getEdgeLabel(getVertexNumber(vertexIndex1), getVertexNumber(vertexIndex2));
+    }
+
     /**
      * @param vertexIndex the index of the vertex in the sorted list of vertices
      * @return the indegree of the vertex
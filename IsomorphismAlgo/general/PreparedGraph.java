@@ -0,0 +1,363 @@
+package org.graph4j.iso.general;
+
+import org.graph4j.Digraph;
+import org.graph4j.Graph;
+import org.graph4j.iso.GraphUtil;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A graph preprocessed once, for many isomorphism queries against different graphs.
+ *
+ * <p>
+ *     It keeps the converted digraph(see {@link GraphUtil#convertToDigraph(Graph)}), the ordered digraph with its cache
+ *     already filled, the adjacency in CSR form(compressed sparse rows) and a few cheap invariants: the degree sequence,
+ *     the label multiset and the number of triangles. The matchers that receive prepared graphs reuse the ordered
+ *     digraphs instead of rebuilding them, and reject the pairs whose invariants do not match before the search.
+ * </p>
+ *
+ * <p>
+ *     A prepared graph is immutable(the graph must not be modified after it was prepared),
+ *     so it can be shared by several matchers and threads.
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public class PreparedGraph {
+    private final Graph<?,?> graph;         // null for a view(see PreparedGraph(OrderedDigraph, boolean))
+    private final Digraph<?,?> digraph;
+    private final OrderedDigraph ordered;
+    private final boolean directed, selfLoops, multipleEdges;
+    private final int n;
+    private final long m;
+
+    // CSR adjacency, by the indices in the ordered digraph: the successors of i are
+    // successorTargets[successorOffsets[i] .. successorOffsets[i + 1])
+    private int[] successorOffsets, successorTargets;
+    private int[] predecessorOffsets, predecessorTargets;
+
+    // invariants
+    private int[] outdegrees, indegrees;      // sorted in descending order
+    private long[] degreePairs;               // (outdegree, indegree) of every vertex, sorted
+    private int degreeSequenceHash;
+    private Map<Object, Integer> labelCounts; // null if some vertex is not labelled
+    private long triangles;                   // in the underlying simple undirected graph
+
+    /**
+     * @param graph the graph to be prepared
+     * @param cacheMode how the ordered digraph caches the adjacency relations
+     * @throws NullPointerException if the graph or the cache mode is null
+     */
+    public PreparedGraph(Graph graph, CacheMode cacheMode) {
+        if (graph == null)
+            throw new NullPointerException("Graph cannot be null");
+        if (cacheMode == null)
+            throw new NullPointerException("Cache mode cannot be null");
+
+        this.graph = graph;
+        this.digraph = GraphUtil.convertToDigraph(graph);
+        this.ordered = new OrderedDigraph(digraph, cacheMode);
+        this.directed = graph.isDirected();
+        this.selfLoops = graph.isAllowingSelfLoops();
+        this.multipleEdges = graph.isAllowingMultipleEdges();
+        this.n = ordered.getNumVertices();
+        this.m = digraph.numEdges();
+
+        // the ordered digraph is shared, so its cache must not be filled lazily
+        ordered.fillCache();
+        computeInvariants();
+    }
+
+    /**
+     * Prepares a view that is not backed by a graph4j graph(e.g. a graph read from a file): the matchers work
+     * directly on the ordered digraph, and the graph4j digraph is built only if it is requested
+     * (see {@link #getGraph()}).
+     * @param ordered the ordered digraph, without self loops and multiple edges(for an undirected graph,
+     *                every edge in both directions)
+     * @param directed true if the original graph is directed
+     * @throws NullPointerException if the ordered digraph is null
+     */
+    public PreparedGraph(OrderedDigraph ordered, boolean directed) {
+        if (ordered == null)
+            throw new NullPointerException("Ordered digraph cannot be null");
+
+        this.graph = null;
+        this.digraph = null;
+        this.ordered = ordered;
+        this.directed = directed;
+        this.selfLoops = this.multipleEdges = false;
+        this.n = ordered.getNumVertices();
+
+        ordered.fillCache();
+        computeInvariants();
+
+        // every edge of an undirected graph is stored in both directions, like in the converted digraph
+        this.m = successorOffsets[n];
+    }
+
+    public PreparedGraph(Graph graph, boolean cache) {
+        this(graph, CacheMode.of(cache));
+    }
+
+    /**
+     * Uses the SPARSE cache: built upfront, linear in the size of the graph.
+     */
+    public PreparedGraph(Graph graph) {
+        this(graph, CacheMode.SPARSE);
+    }
+
+    /**
+     * Builds the CSR adjacency and the invariants, from the ordered digraph.
+     */
+    private void computeInvariants() {
+        this.successorOffsets = new int[n + 1];
+        this.predecessorOffsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            successorOffsets[i + 1] = successorOffsets[i] + ordered.successors(i).length;
+            predecessorOffsets[i + 1] = predecessorOffsets[i] + ordered.predecessors(i).length;
+        }
+        this.successorTargets = new int[successorOffsets[n]];
+        this.predecessorTargets = new int[predecessorOffsets[n]];
+        for (int i = 0; i < n; i++) {
+            int[] succ = ordered.successors(i).clone();
+            int[] pred = ordered.predecessors(i).clone();
+            Arrays.sort(succ);
+            Arrays.sort(pred);
+            System.arraycopy(succ, 0, successorTargets, successorOffsets[i], succ.length);
+            System.arraycopy(pred, 0, predecessorTargets, predecessorOffsets[i], pred.length);
+        }
+
+        this.outdegrees = new int[n];
+        this.indegrees = new int[n];
+        this.degreePairs = new long[n];
+        for (int i = 0; i < n; i++) {
+            outdegrees[i] = ordered.outdegree(i);
+            indegrees[i] = ordered.indegree(i);
+            degreePairs[i] = ((long) outdegrees[i] << 32) | indegrees[i];
+        }
+        sortDescending(outdegrees);
+        sortDescending(indegrees);
+        Arrays.sort(degreePairs);
+        this.degreeSequenceHash = Arrays.hashCode(degreePairs);
+
+        this.labelCounts = countLabels();
+        this.triangles = countTriangles();
+    }
+
+    private static void sortDescending(int[] values) {
+        Arrays.sort(values);
+        for (int l = 0, r = values.length - 1; l < r; l++, r--) {
+            int aux = values[l];
+            values[l] = values[r];
+            values[r] = aux;
+        }
+    }
+
+    private Map<Object, Integer> countLabels() {
+        Map<Object, Integer> counts = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Object label = ordered.getVertexLabel(i);
+            if (label == null)
+                return null;
+            counts.merge(label, 1, Integer::sum);
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Counts the triangles of the underlying simple undirected graph(the directions, the self loops and the multiple
+     * edges are ignored). Every triangle u < v < w is found once, from its smallest vertex.
+     */
+    private long countTriangles() {
+        int[][] neighbours = new int[n][];
+        for (int i = 0; i < n; i++) {
+            int[] all = new int[successorOffsets[i + 1] - successorOffsets[i] + predecessorOffsets[i + 1] - predecessorOffsets[i]];
+            int size = 0;
+            for (int k = successorOffsets[i]; k < successorOffsets[i + 1]; k++)
+                if (successorTargets[k] > i)
+                    all[size++] = successorTargets[k];
+            for (int k = predecessorOffsets[i]; k < predecessorOffsets[i + 1]; k++)
+                if (predecessorTargets[k] > i)
+                    all[size++] = predecessorTargets[k];
+            neighbours[i] = AbstractState.distinct(Arrays.copyOf(all, size));
+        }
+
+        long count = 0;
+        for (int u = 0; u < n; u++) {
+            for (int v : neighbours[u]) {
+                // the common larger neighbours of u and v, by merging the sorted lists
+                int[] a = neighbours[u], b = neighbours[v];
+                int p = 0, q = 0;
+                while (p < a.length && q < b.length) {
+                    if (a[p] < b[q])
+                        p++;
+                    else if (a[p] > b[q])
+                        q++;
+                    else {
+                        count++;
+                        p++;
+                        q++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Necessary conditions for an isomorphism: same type, same number of vertices and edges, same degree sequence,
+     * same number of triangles and, if both graphs are fully labelled, the same labels.
+     * @param other another prepared graph
+     * @return false if the graphs are surely not isomorphic
+     */
+    public boolean mayBeIsomorphicTo(PreparedGraph other) {
+        if (!hasSameTypeAs(other) || n != other.n || m != other.m)
+            return false;
+        if (degreeSequenceHash != other.degreeSequenceHash || !Arrays.equals(degreePairs, other.degreePairs))
+            return false;
+        if (triangles != other.triangles)
+            return false;
+
+        // a missing label matches any label
+        return labelCounts == null || other.labelCounts == null || labelCounts.equals(other.labelCounts);
+    }
+
+    /**
+     * Necessary conditions for a subgraph isomorphism(induced or not) from this graph to the target: at most as many
+     * vertices, edges and triangles, the k-th largest degree at most the k-th largest degree of the target and,
+     * if both graphs are fully labelled, at most as many vertices with every label.
+     * @param target the graph that should contain this graph
+     * @return false if this graph surely does not occur in the target
+     */
+    public boolean mayBeContainedIn(PreparedGraph target) {
+        if (!hasSameTypeAs(target) || n > target.n || m > target.m)
+            return false;
+        if (triangles > target.triangles)
+            return false;
+        for (int k = 0; k < n; k++)
+            if (outdegrees[k] > target.outdegrees[k] || indegrees[k] > target.indegrees[k])
+                return false;
+
+        if (labelCounts != null && target.labelCounts != null) {
+            for (Map.Entry<Object, Integer> entry : labelCounts.entrySet())
+                if (entry.getValue() > target.labelCounts.getOrDefault(entry.getKey(), 0))
+                    return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if both graphs are directed or both undirected, and they allow the same kinds of edges
+     */
+    public boolean hasSameTypeAs(PreparedGraph other) {
+        return directed == other.directed && selfLoops == other.selfLoops && multipleEdges == other.multipleEdges;
+    }
+
+    /**
+     * @return the original graph(for a view, the digraph built by the ordered digraph)
+     */
+    public Graph<?,?> getGraph() {
+        return graph != null ? graph : ordered.getGraph();
+    }
+
+    /**
+     * @return the graph converted to a digraph(for a view, the digraph built by the ordered digraph)
+     */
+    public Digraph<?,?> getDigraph() {
+        return digraph != null ? digraph : ordered.getGraph();
+    }
+
+    /**
+     * @return true if the prepared graph is a view over an ordered digraph, not backed by a graph4j graph
+     */
+    public boolean isView() {
+        return graph == null;
+    }
+
+    public boolean isDirected() {
+        return directed;
+    }
+
+    public boolean isAllowingSelfLoops() {
+        return selfLoops;
+    }
+
+    public boolean isAllowingMultipleEdges() {
+        return multipleEdges;
+    }
+
+    /**
+     * @return the ordered digraph, with the cache filled(it must not be modified)
+     */
+    public OrderedDigraph getOrderedDigraph() {
+        return ordered;
+    }
+
+    public CacheMode getCacheMode() {
+        return ordered.getCacheMode();
+    }
+
+    public int numVertices() {
+        return n;
+    }
+
+    /**
+     * @return the number of edges of the converted digraph(every undirected edge is counted in both directions)
+     */
+    public long numEdges() {
+        return m;
+    }
+
+    /**
+     * The CSR rows must not be modified.
+     * @return the offsets of the successor lists in {@link #getSuccessorTargets()}, n + 1 values
+     */
+    public int[] getSuccessorOffsets() {
+        return successorOffsets;
+    }
+
+    /**
+     * @return the successors of all the vertices(indices in the ordered digraph), every list sorted
+     */
+    public int[] getSuccessorTargets() {
+        return successorTargets;
+    }
+
+    /**
+     * @return the offsets of the predecessor lists in {@link #getPredecessorTargets()}, n + 1 values
+     */
+    public int[] getPredecessorOffsets() {
+        return predecessorOffsets;
+    }
+
+    /**
+     * @return the predecessors of all the vertices(indices in the ordered digraph), every list sorted
+     */
+    public int[] getPredecessorTargets() {
+        return predecessorTargets;
+    }
+
+    /**
+     * @return a hash of the sorted (outdegree, indegree) pairs of the vertices
+     */
+    public int getDegreeSequenceHash() {
+        return degreeSequenceHash;
+    }
+
+    /**
+     * @return the number of vertices with every label, or null if some vertex is not labelled
+     */
+    public Map<Object, Integer> getLabelCounts() {
+        return labelCounts;
+    }
+
+    /**
+     * @return the number of triangles of the underlying simple undirected graph
+     */
+    public long getTriangleCount() {
+        return triangles;
+    }
+}
@@ -0,0 +1,104 @@
+package org.graph4j.iso.general;
+
+import java.time.Duration;
+
+/**
+ * Limits for a search: a wall-clock time limit, a maximum number of explored states and a cancellation token.
+ *
+ * <p>
+ *     The budget is immutable, the limits are added with the {@code with...} methods, e.g.
+ *     {@code SearchBudget.unlimited().withTimeLimit(Duration.ofSeconds(5)).withMaxStates(1_000_000)}.
+ *     A search with a budget also stops when its thread is interrupted.
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public final class SearchBudget {
+    public static final long NO_LIMIT = Long.MAX_VALUE;
+
+    private static final SearchBudget UNLIMITED = new SearchBudget(NO_LIMIT, NO_LIMIT, null);
+
+    private final long timeLimitNanos;
+    private final long maxStates;
+    private final CancellationToken cancellationToken;     // null if there is none
+
+    private SearchBudget(long timeLimitNanos, long maxStates, CancellationToken cancellationToken) {
+        this.timeLimitNanos = timeLimitNanos;
+        this.maxStates = maxStates;
+        this.cancellationToken = cancellationToken;
+    }
+
+    /**
+     * @return a budget without limits(the search still stops if its thread is interrupted)
+     */
+    public static SearchBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * @param timeLimit the maximum duration of the search, measured from its start
+     * @return a copy of this budget, with the given time limit
+     * @throws NullPointerException if the time limit is null
+     * @throws IllegalArgumentException if the time limit is negative
+     */
+    public SearchBudget withTimeLimit(Duration timeLimit) {
+        if (timeLimit == null)
+            throw new NullPointerException("Time limit cannot be null");
+
+        if (timeLimit.isNegative())
+            throw new IllegalArgumentException("Time limit cannot be negative");
+
+        long nanos;
+        try {
+            nanos = timeLimit.toNanos();
+        } catch (ArithmeticException e) {
+            nanos = NO_LIMIT;
+        }
+        return new SearchBudget(nanos, maxStates, cancellationToken);
+    }
+
+    /**
+     * @param maxStates the maximum number of states(partial mappings) that are explored
+     * @return a copy of this budget, with the given limit
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    public SearchBudget withMaxStates(long maxStates) {
+        if (maxStates < 0)
+            throw new IllegalArgumentException("Maximum number of states cannot be negative");
+
+        return new SearchBudget(timeLimitNanos, maxStates, cancellationToken);
+    }
+
+    /**
+     * @param cancellationToken the token checked during the search
+     * @return a copy of this budget, with the given cancellation token
+     * @throws NullPointerException if the token is null
+     */
+    public SearchBudget withCancellationToken(CancellationToken cancellationToken) {
+        if (cancellationToken == null)
+            throw new NullPointerException("Cancellation token cannot be null");
+
+        return new SearchBudget(timeLimitNanos, maxStates, cancellationToken);
+    }
+
+    /**
+     * @return the time limit in nanoseconds, or NO_LIMIT
+     */
+    public long getTimeLimitNanos() {
+        return timeLimitNanos;
+    }
+
+    /**
+     * @return the maximum number of explored states, or NO_LIMIT
+     */
+    public long getMaxStates() {
+        return maxStates;
+    }
+
+    /**
+     * @return the cancellation token, or null if there is none
+     */
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+}
@@ -0,0 +1,57 @@
+package org.graph4j.iso.general;
+
+import org.graph4j.iso.IsomorphicGraphMapping;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of a search with a {@link SearchBudget}: the mappings found before the search ended and how it ended.
+ *
+ * <p>
+ *     If the budget was exhausted, the mappings are only a part of the solution.
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public class SearchResult {
+    private final List<IsomorphicGraphMapping> mappings;
+    private final SearchStatus status;
+    private final long exploredStates;
+
+    public SearchResult(List<IsomorphicGraphMapping> mappings, SearchStatus status, long exploredStates) {
+        this.mappings = Collections.unmodifiableList(mappings);
+        this.status = status;
+        this.exploredStates = exploredStates;
+    }
+
+    /**
+     * @return the mappings found before the search ended
+     */
+    public List<IsomorphicGraphMapping> getMappings() {
+        return mappings;
+    }
+
+    public SearchStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the number of states(partial mappings) explored by the search
+     */
+    public long getExploredStates() {
+        return exploredStates;
+    }
+
+    /**
+     * @return true if the search was stopped before it completed(time limit, state limit or cancellation)
+     */
+    public boolean isBudgetExhausted() {
+        return status != SearchStatus.COMPLETED;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult{mappings=" + mappings.size() + ", status=" + status + ", exploredStates=" + exploredStates + "}";
+    }
+}
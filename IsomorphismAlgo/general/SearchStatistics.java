@@ -0,0 +1,100 @@
+package org.graph4j.iso.general;
+
+/**
+ * Counters of the search, for finding out why a pair of graphs is slow.
+ *
+ * <p>
+ *     The collector is optional: it is given to {@link AbstractGraphIsomorphism#setStatistics(SearchStatistics)},
+ *     and the states only update it if it is present, so a search without statistics pays only a null check.
+ *     The counters are accumulated over all the searches that use the same collector, until {@link #reset()}.
+ * </p>
+ * <p>
+ *     The collector is not thread-safe, so it is not used by the parallel search.
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public class SearchStatistics {
+    long nextPairCalls;         // calls of State.nextPair(), including the ones that found no pair
+    long semanticRejects;       // pairs rejected because the vertices are not compatible(labels, self loops)
+    long edgeRejects;           // pairs rejected because of the edges to the mapped vertices
+    long lookAheadRejects;      // pairs rejected by the look-ahead rules(terminal/new neighbours, degrees)
+    long statesPushed;          // states created by adding a pair
+    long deadStates;            // states pruned by State.isDead()
+    long backtracks;            // calls of State.backTrack()
+    long goals;                 // complete mappings
+    int maxDepth;               // the largest number of mapped vertices
+    long refinePasses;          // refinements of the compatibility matrix(Ullman)
+    long refineRemovals;        // candidates removed by the refinements(Ullman)
+
+    public long getNextPairCalls() {
+        return nextPairCalls;
+    }
+
+    public long getSemanticRejects() {
+        return semanticRejects;
+    }
+
+    public long getEdgeRejects() {
+        return edgeRejects;
+    }
+
+    public long getLookAheadRejects() {
+        return lookAheadRejects;
+    }
+
+    public long getStatesPushed() {
+        return statesPushed;
+    }
+
+    public long getDeadStates() {
+        return deadStates;
+    }
+
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    public long getGoals() {
+        return goals;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getRefinePasses() {
+        return refinePasses;
+    }
+
+    public long getRefineRemovals() {
+        return refineRemovals;
+    }
+
+    /**
+     * Sets all the counters to 0.
+     */
+    public void reset() {
+        nextPairCalls = semanticRejects = edgeRejects = lookAheadRejects = 0;
+        statesPushed = deadStates = backtracks = goals = 0;
+        refinePasses = refineRemovals = 0;
+        maxDepth = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchStatistics{" +
+                "nextPairCalls=" + nextPairCalls +
+                ", semanticRejects=" + semanticRejects +
+                ", edgeRejects=" + edgeRejects +
+                ", lookAheadRejects=" + lookAheadRejects +
+                ", statesPushed=" + statesPushed +
+                ", deadStates=" + deadStates +
+                ", backtracks=" + backtracks +
+                ", goals=" + goals +
+                ", maxDepth=" + maxDepth +
+                ", refinePasses=" + refinePasses +
+                ", refineRemovals=" + refineRemovals +
+                '}';
+    }
+}
@@ -0,0 +1,28 @@
+package org.graph4j.iso.general;
+
+/**
+ * How a search with a {@link SearchBudget} ended.
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public enum SearchStatus {
+    /**
+     * The search space was explored(or the requested mappings were found) within the budget.
+     */
+    COMPLETED,
+
+    /**
+     * The deadline was reached.
+     */
+    TIME_LIMIT_REACHED,
+
+    /**
+     * The maximum number of explored states was reached.
+     */
+    STATE_LIMIT_REACHED,
+
+    /**
+     * The cancellation token was cancelled, or the searching thread was interrupted.
+     */
+    CANCELLED
+}
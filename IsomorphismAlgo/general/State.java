@@ -51,6 +51,17 @@ public interface State {
      */
     IsomorphicGraphMapping getMapping();
 
+    /**
+     * @return a read-only view of the mapping of the current state, that does not copy it
+     */
+    MappingView getMappingView();
+
+    /**
+     * Replaces the arrays shared with the state this one was copied from by private copies.
+     * After this call, the state can be explored independently of the others(e.g. on another thread).
+     */
+    void detach();
+
     void resetPreviousVertices();
     int getCoreLen();
 }
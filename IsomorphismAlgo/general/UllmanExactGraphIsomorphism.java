@@ -10,6 +10,10 @@ import org.graph4j.Graph;
  *     Based on the paper " J.R. Ullmann, An Algorithm for Subgraph Isomorphism, Journal of the
  * Association for Computing Machinery, 1976"
  * </p>
+ * <p>
+ *     The initial compatibility matrix is restricted by a color refinement(1-WL) of the two graphs,
+ *     which also rejects most of the non-isomorphic pairs before the search(see {@link ColorRefinement}).
+ * </p>
  *
  * @author Ignat Gabriel-Andrei
  */
@@ -18,13 +22,34 @@ public class UllmanExactGraphIsomorphism extends AbstractGraphIsomorphism {
         super(g1, g2, cache);
     }
 
+    public UllmanExactGraphIsomorphism(Graph g1, Graph g2, CacheMode cacheMode) {
+        super(g1, g2, cacheMode);
+    }
+
+    /**
+     * The ordered digraphs of the prepared graphs are reused.
+     */
+    public UllmanExactGraphIsomorphism(PreparedGraph g1, PreparedGraph g2) {
+        super(g1, g2);
+    }
+
     public UllmanExactGraphIsomorphism(Graph g1, Graph g2) {
         super(g1, g2);
     }
 
     @Override
-    protected State getStateInstance(Digraph g1, Digraph g2, boolean cache) {
-        return new UllmanExactState(g1, g2, cache);
+    protected State getStateInstance(Digraph g1, Digraph g2, CacheMode cacheMode) {
+        return new UllmanExactState(g1, g2, cacheMode);
+    }
+
+    @Override
+    protected State getStateInstance(OrderedDigraph o1, OrderedDigraph o2) {
+        return new UllmanExactState(o1, o2);
+    }
+
+    @Override
+    protected boolean preparedGraphsCompatible() {
+        return prepared1.mayBeIsomorphicTo(prepared2);
     }
 
     @Override
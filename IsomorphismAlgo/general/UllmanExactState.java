@@ -2,21 +2,35 @@ package org.graph4j.iso.general;
 
 import org.graph4j.Digraph;
 
-import java.util.List;
 
 /**
  * Class for the Ullman algorithm for exact graph isomorphism.
- * Two vertices are compatible if they have the same degree and same labels.
+ * Two vertices are compatible if they have the same degree, same labels and same color after the color refinement.
  *
  * @author Ignat Gabriel-Andrei
  */
 public class UllmanExactState extends AbstractUllmanState {
     public UllmanExactState(Digraph g1, Digraph g2) {
-        super(g1, g2);
+        this(g1, g2, false);
     }
 
     public UllmanExactState(Digraph g1, Digraph g2, boolean cache) {
-        super(g1, g2, cache);
+        this(g1, g2, CacheMode.of(cache));
+    }
+
+    public UllmanExactState(Digraph g1, Digraph g2, CacheMode cacheMode) {
+        this(new OrderedDigraph(g1, cacheMode), new OrderedDigraph(g2, cacheMode));
+    }
+
+    /**
+     * The initial compatibility matrix is restricted by the colors of the vertices(see {@link ColorRefinement}).
+     */
+    public UllmanExactState(OrderedDigraph o1, OrderedDigraph o2) {
+        super(o1, o2);
+
+        // the refinement is useless if the sizes already differ
+        if (n1 == n2)
+            restrictToColors(refineColors());
     }
 
     public UllmanExactState(UllmanExactState s) {
@@ -52,13 +66,8 @@ public class UllmanExactState extends AbstractUllmanState {
         if (n1 != n2)       // if the graphs have different number of vertices, there is no isomorphism
             return true;
 
-        for (int i = 0; i < n1; i++){
-            // for each vertex in g1, there is at least one candidate in g2
-            List<Integer> candidates = getCandidates(i);
-            if (candidates.isEmpty())
-                return true;
-        }
-        return false;
+        // for each vertex in g1, there is at least one candidate in g2
+        return hasEmptyRow();
     }
 }
 
@@ -11,24 +11,89 @@ import org.graph4j.Graph;
  * Association for Computing Machinery, 1976"
  * </p>
  *
+ * <p>
+ *     By default, the subgraph is non-induced({@link MatchingSemantics#MONOMORPHISM}): only the edges of g1 must exist
+ *     in g2, so on digraphs g2 may have edges between the mapped vertices in both directions where g1 has only one.
+ *     The matching semantics can be chosen with {@link MatchingSemantics}.
+ * </p>
+ *
  * @author Ignat Gabriel-Andrei
  */
 public class UllmanSubGraphIsomorphism extends AbstractGraphIsomorphism {
+    private final MatchingSemantics semantics;
+
     public UllmanSubGraphIsomorphism(Graph g1, Graph g2) {
-        super(g1, g2);
+        this(g1, g2, false);
     }
 
     public UllmanSubGraphIsomorphism(Graph g1, Graph g2, boolean cache) {
-        super(g1, g2, cache);
+        this(g1, g2, CacheMode.of(cache));
+    }
+
+    public UllmanSubGraphIsomorphism(Graph g1, Graph g2, CacheMode cacheMode) {
+        this(g1, g2, cacheMode, MatchingSemantics.MONOMORPHISM);
+    }
+
+    public UllmanSubGraphIsomorphism(Graph g1, Graph g2, MatchingSemantics semantics) {
+        this(g1, g2, CacheMode.NONE, semantics);
+    }
+
+    /**
+     * @param g1 the first graph(the pattern)
+     * @param g2 the second graph
+     * @param cacheMode how the algorithm will cache the successors, predecessors, the adjacency relations
+     * @param semantics the relation between the edges of the pattern and the edges of the second graph
+     */
+    public UllmanSubGraphIsomorphism(Graph g1, Graph g2, CacheMode cacheMode, MatchingSemantics semantics) {
+        super(g1, g2, cacheMode);
+        if (semantics == null)
+            throw new NullPointerException("Matching semantics cannot be null");
+        this.semantics = semantics;
+    }
+
+    /**
+     * The ordered digraphs of the prepared graphs are reused.
+     */
+    public UllmanSubGraphIsomorphism(PreparedGraph g1, PreparedGraph g2) {
+        this(g1, g2, MatchingSemantics.MONOMORPHISM);
     }
+
+    public UllmanSubGraphIsomorphism(PreparedGraph g1, PreparedGraph g2, MatchingSemantics semantics) {
+        super(g1, g2);
+        if (semantics == null)
+            throw new NullPointerException("Matching semantics cannot be null");
+        this.semantics = semantics;
+    }
+
+    public MatchingSemantics getMatchingSemantics() {
+        return semantics;
+    }
+
     @Override
-    protected State getStateInstance(Digraph g1, Digraph g2, boolean cache) {
-        return new UllmanSubState(g1, g2, cache);
+    protected State getStateInstance(Digraph g1, Digraph g2, CacheMode cacheMode) {
+        if (semantics == MatchingSemantics.EXACT)
+            return new UllmanExactState(g1, g2, cacheMode);
+        return new UllmanSubState(g1, g2, cacheMode, semantics);
+    }
+
+    @Override
+    protected State getStateInstance(OrderedDigraph o1, OrderedDigraph o2) {
+        if (semantics == MatchingSemantics.EXACT)
+            return new UllmanExactState(o1, o2);
+        return new UllmanSubState(o1, o2, semantics);
+    }
+
+    @Override
+    protected boolean preparedGraphsCompatible() {
+        if (semantics == MatchingSemantics.EXACT)
+            return prepared1.mayBeIsomorphicTo(prepared2);
+        return prepared1.mayBeContainedIn(prepared2);
     }
 
     @Override
     protected State getNewStateInstance(State s) {
+        if (s instanceof UllmanExactState exactState)
+            return new UllmanExactState(exactState);
         return new UllmanSubState((UllmanSubState) s);
     }
 }
-
@@ -1,7 +1,6 @@
 package org.graph4j.iso.general;
 
 import org.graph4j.Digraph;
-import java.util.List;
 
 /**
  * Class for the Ullman algorithm for exact graph isomorphism.
@@ -12,11 +11,32 @@ import java.util.List;
  */
 public class UllmanSubState extends AbstractUllmanState {
     public UllmanSubState(Digraph g1, Digraph g2) {
-        super(g1, g2);
+        this(g1, g2, false);
     }
 
     public UllmanSubState(Digraph g1, Digraph g2, boolean cache) {
-        super(g1, g2, cache);
+        this(g1, g2, CacheMode.of(cache));
+    }
+
+    public UllmanSubState(Digraph g1, Digraph g2, CacheMode cacheMode) {
+        this(g1, g2, cacheMode, MatchingSemantics.MONOMORPHISM);
+    }
+
+    /**
+     * @param semantics INDUCED or MONOMORPHISM
+     */
+    public UllmanSubState(Digraph g1, Digraph g2, CacheMode cacheMode, MatchingSemantics semantics) {
+        this(new OrderedDigraph(g1, cacheMode), new OrderedDigraph(g2, cacheMode), semantics);
+    }
+
+    /**
+     * @param semantics INDUCED or MONOMORPHISM
+     */
+    public UllmanSubState(OrderedDigraph o1, OrderedDigraph o2, MatchingSemantics semantics) {
+        super(o1, o2);
+        if (semantics == MatchingSemantics.EXACT)
+            throw new IllegalArgumentException("Exact isomorphism is done by UllmanExactState");
+        this.semantics = semantics;
     }
 
     public UllmanSubState(UllmanSubState s) {
@@ -56,12 +76,8 @@ public class UllmanSubState extends AbstractUllmanState {
         if (n1 > n2)        // if the first graph has more vertices than the second graph, there is no subgraph isomorphism
             return true;
 
-        for (int i = 0; i < n1; i++){
-            List<Integer> candidates = getCandidates(i);
-            if (candidates.isEmpty())
-                return true;
-        }
-        return false;
+        // for each vertex in g1, there is at least one candidate in g2
+        return hasEmptyRow();
     }
 }
 
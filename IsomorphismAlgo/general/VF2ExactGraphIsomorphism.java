@@ -13,6 +13,9 @@ import org.graph4j.Graph;
  *
  * This implementation of the VF2 algorithm does support all types of graphs.
  *
+ * <p>Before the search, a color refinement(1-WL) rejects most of the non-isomorphic pairs and restricts
+ * the candidates of every vertex to the vertices of the same color(see {@link ColorRefinement}).</p>
+ *
  * @author Ignat Gabriel-Andrei
  */
 public class VF2ExactGraphIsomorphism extends AbstractGraphIsomorphism {
@@ -20,13 +23,34 @@ public class VF2ExactGraphIsomorphism extends AbstractGraphIsomorphism {
         super(g1, g2, cache);
     }
 
+    public VF2ExactGraphIsomorphism(Graph g1, Graph g2, CacheMode cacheMode) {
+        super(g1, g2, cacheMode);
+    }
+
+    /**
+     * The ordered digraphs of the prepared graphs are reused.
+     */
+    public VF2ExactGraphIsomorphism(PreparedGraph g1, PreparedGraph g2) {
+        super(g1, g2);
+    }
+
     public VF2ExactGraphIsomorphism(Graph g1, Graph g2) {
         super(g1, g2);
     }
 
     @Override
-    protected State getStateInstance(Digraph g1, Digraph g2, boolean cache) {
-        return new VF2ExactState(g1, g2, cache);
+    protected State getStateInstance(Digraph g1, Digraph g2, CacheMode cacheMode) {
+        return new VF2ExactState(g1, g2, cacheMode);
+    }
+
+    @Override
+    protected State getStateInstance(OrderedDigraph o1, OrderedDigraph o2) {
+        return new VF2ExactState(o1, o2);
+    }
+
+    @Override
+    protected boolean preparedGraphsCompatible() {
+        return prepared1.mayBeIsomorphicTo(prepared2);
     }
 
     @Override
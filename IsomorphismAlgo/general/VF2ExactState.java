@@ -5,19 +5,43 @@ import org.graph4j.Digraph;
 /**
  * Class for the VF2 algorithm for exact graph isomorphism.
  *
+ * <p>
+ *     Before the search, the colors of the vertices are refined(see {@link ColorRefinement}): if the color histograms
+ *     of the graphs differ, the initial state is dead, otherwise only the vertices of the same color are paired.
+ * </p>
+ *
  * @author Ignat Gabriel-Andrei
  */
 public class VF2ExactState extends AbstractVF2State {
+    protected boolean colorsMismatch;   // the color histograms differ, so the graphs are not isomorphic
+
     public VF2ExactState(Digraph g1, Digraph g2) {
-        super(g1, g2);
+        this(g1, g2, false);
     }
 
     public VF2ExactState(Digraph g1, Digraph g2, boolean cache) {
-        super(g1, g2, cache);
+        this(g1, g2, CacheMode.of(cache));
+    }
+
+    public VF2ExactState(Digraph g1, Digraph g2, CacheMode cacheMode) {
+        this(new OrderedDigraph(g1, cacheMode), new OrderedDigraph(g2, cacheMode));
+    }
+
+    public VF2ExactState(OrderedDigraph o1, OrderedDigraph o2) {
+        super(o1, o2);
+
+        // the refinement is useless if the sizes already differ
+        if (n1 == n2) {
+            ColorRefinement refinement = refineColors();
+            this.colorsMismatch = !refinement.histogramsEqual();
+            this.color1 = refinement.getColors1();
+            this.color2 = refinement.getColors2();
+        }
     }
 
     public VF2ExactState(VF2ExactState s){
         super(s);
+        this.colorsMismatch = s.colorsMismatch;
     }
 
     /**
@@ -47,11 +71,11 @@ public class VF2ExactState extends AbstractVF2State {
 
     /**
      * For exact isomorphism, a state is 'dead' if the number of 'in'/'out'/'both' vertices
-     * in the subgraph G1(s) is different from that in the subgraph G2(s)
+     * in the subgraph G1(s) is different from that in the subgraph G2(s), or if the color histograms differ
      */
     @Override
     public boolean isDead() {
-        return n1 != n2 ||
+        return n1 != n2 || colorsMismatch ||
                 t1both_len != t2both_len ||
                 t1out_len != t2out_len ||
                 t1in_len != t2in_len ;
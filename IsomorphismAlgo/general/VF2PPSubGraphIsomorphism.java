@@ -0,0 +1,56 @@
+package org.graph4j.iso.general;
+
+import org.graph4j.Digraph;
+import org.graph4j.Graph;
+
+/**
+ * Class for the VF2++ algorithm for subgraph isomorphism.
+ *
+ * <p>Based on the paper "A. Juttner, P. Madarasi, VF2++ - An improved subgraph isomorphism algorithm,
+ * Discrete Applied Mathematics, 2018 (10.1016/j.dam.2018.02.018)"</p>
+ *
+ * The vertices of the first graph are matched in a precomputed BFS order, which prefers rare labels and vertices
+ * connected to the already ordered ones. It is much faster than VF2 on labelled graphs(e.g. molecules).
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public class VF2PPSubGraphIsomorphism extends AbstractGraphIsomorphism {
+    public VF2PPSubGraphIsomorphism(Graph g1, Graph g2) {
+        super(g1, g2);
+    }
+
+    public VF2PPSubGraphIsomorphism(Graph g1, Graph g2, boolean cache) {
+        super(g1, g2, cache);
+    }
+
+    public VF2PPSubGraphIsomorphism(Graph g1, Graph g2, CacheMode cacheMode) {
+        super(g1, g2, cacheMode);
+    }
+
+    /**
+     * The ordered digraphs of the prepared graphs are reused.
+     */
+    public VF2PPSubGraphIsomorphism(PreparedGraph g1, PreparedGraph g2) {
+        super(g1, g2);
+    }
+
+    @Override
+    protected State getStateInstance(Digraph g1, Digraph g2, CacheMode cacheMode) {
+        return new VF2PPSubState(g1, g2, cacheMode);
+    }
+
+    @Override
+    protected State getStateInstance(OrderedDigraph o1, OrderedDigraph o2) {
+        return new VF2PPSubState(o1, o2);
+    }
+
+    @Override
+    protected boolean preparedGraphsCompatible() {
+        return prepared1.mayBeContainedIn(prepared2);
+    }
+
+    @Override
+    protected State getNewStateInstance(State s) {
+        return new VF2PPSubState((VF2PPSubState) s);
+    }
+}
@@ -14,23 +14,87 @@ import org.graph4j.Graph;
  *
  * This implementation of the VF2 algorithm does support all types of graphs.
  *
+ * <p>
+ *     By default, the subgraph is induced; the matching semantics can be chosen with {@link MatchingSemantics}.
+ * </p>
+ *
  * @author Ignat Gabriel-Andrei
  */
 public class VF2SubGraphIsomorphism extends AbstractGraphIsomorphism {
+    private final MatchingSemantics semantics;
+
     public VF2SubGraphIsomorphism(Graph g1, Graph g2) {
-        super(g1, g2);
+        this(g1, g2, false);
     }
 
     public VF2SubGraphIsomorphism(Graph g1, Graph g2, boolean cache) {
-        super(g1, g2, cache);
+        this(g1, g2, CacheMode.of(cache));
+    }
+
+    public VF2SubGraphIsomorphism(Graph g1, Graph g2, CacheMode cacheMode) {
+        this(g1, g2, cacheMode, MatchingSemantics.INDUCED);
+    }
+
+    public VF2SubGraphIsomorphism(Graph g1, Graph g2, MatchingSemantics semantics) {
+        this(g1, g2, CacheMode.NONE, semantics);
+    }
+
+    /**
+     * @param g1 the first graph(the pattern)
+     * @param g2 the second graph
+     * @param cacheMode how the algorithm will cache the successors, predecessors, the adjacency relations
+     * @param semantics the relation between the edges of the pattern and the edges of the second graph
+     */
+    public VF2SubGraphIsomorphism(Graph g1, Graph g2, CacheMode cacheMode, MatchingSemantics semantics) {
+        super(g1, g2, cacheMode);
+        if (semantics == null)
+            throw new NullPointerException("Matching semantics cannot be null");
+        this.semantics = semantics;
+    }
+
+    /**
+     * The ordered digraphs of the prepared graphs are reused.
+     */
+    public VF2SubGraphIsomorphism(PreparedGraph g1, PreparedGraph g2) {
+        this(g1, g2, MatchingSemantics.INDUCED);
     }
+
+    public VF2SubGraphIsomorphism(PreparedGraph g1, PreparedGraph g2, MatchingSemantics semantics) {
+        super(g1, g2);
+        if (semantics == null)
+            throw new NullPointerException("Matching semantics cannot be null");
+        this.semantics = semantics;
+    }
+
+    public MatchingSemantics getMatchingSemantics() {
+        return semantics;
+    }
+
+    @Override
+    protected State getStateInstance(Digraph g1, Digraph g2, CacheMode cacheMode) {
+        if (semantics == MatchingSemantics.EXACT)
+            return new VF2ExactState(g1, g2, cacheMode);
+        return new VF2SubState(g1, g2, cacheMode, semantics);
+    }
+
+    @Override
+    protected State getStateInstance(OrderedDigraph o1, OrderedDigraph o2) {
+        if (semantics == MatchingSemantics.EXACT)
+            return new VF2ExactState(o1, o2);
+        return new VF2SubState(o1, o2, semantics);
+    }
+
     @Override
-    protected State getStateInstance(Digraph g1, Digraph g2, boolean cache) {
-        return new VF2SubState(g1, g2, cache);
+    protected boolean preparedGraphsCompatible() {
+        if (semantics == MatchingSemantics.EXACT)
+            return prepared1.mayBeIsomorphicTo(prepared2);
+        return prepared1.mayBeContainedIn(prepared2);
     }
 
     @Override
     protected State getNewStateInstance(State s) {
+        if (s instanceof VF2ExactState exactState)
+            return new VF2ExactState(exactState);
         return new VF2SubState((VF2SubState) s);
     }
 }
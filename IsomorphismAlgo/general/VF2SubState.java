@@ -8,12 +8,36 @@ import org.graph4j.Digraph;
  * <p>
  * The first graph is the subgraph and the second graph is the graph where we search the isomorphic subgraph.
  * </p>
+ * <p>
+ * The subgraph is induced, unless the {@link MatchingSemantics#MONOMORPHISM} semantics is given.
+ * </p>
  *
  * @author Ignat Gabriel-Andrei
  */
 public class VF2SubState extends AbstractVF2State {
     public VF2SubState(Digraph g1, Digraph g2, boolean cache) {
-        super(g1, g2, cache);
+        this(g1, g2, CacheMode.of(cache));
+    }
+
+    public VF2SubState(Digraph g1, Digraph g2, CacheMode cacheMode) {
+        this(g1, g2, cacheMode, MatchingSemantics.INDUCED);
+    }
+
+    /**
+     * @param semantics INDUCED or MONOMORPHISM
+     */
+    public VF2SubState(Digraph g1, Digraph g2, CacheMode cacheMode, MatchingSemantics semantics) {
+        this(new OrderedDigraph(g1, cacheMode), new OrderedDigraph(g2, cacheMode), semantics);
+    }
+
+    /**
+     * @param semantics INDUCED or MONOMORPHISM
+     */
+    public VF2SubState(OrderedDigraph o1, OrderedDigraph o2, MatchingSemantics semantics) {
+        super(o1, o2);
+        if (semantics == MatchingSemantics.EXACT)
+            throw new IllegalArgumentException("Exact isomorphism is done by VF2ExactState");
+        this.semantics = semantics;
     }
 
     public VF2SubState(VF2SubState s){
@@ -33,6 +57,12 @@ public class VF2SubState extends AbstractVF2State {
      */
     @Override
     public boolean exactOrSubgraphIsomorphismCompatibilityCheck(int term_in1, int term_out1, int term_in2, int term_out2, int new_1, int new_2) {
+        // for monomorphism, a new vertex of g1 can be mapped to a terminal vertex of g2(through an extra edge)
+        if (semantics == MatchingSemantics.MONOMORPHISM)
+            return term_in1 <= term_in2 &&
+                    term_out1 <= term_out2 &&
+                    term_in1 + term_out1 + new_1 <= term_in2 + term_out2 + new_2;
+
         return term_in1 <= term_in2 &&
                 term_out1 <= term_out2 &&
                 new_1 <= new_2;
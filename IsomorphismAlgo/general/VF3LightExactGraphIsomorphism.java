@@ -0,0 +1,56 @@
+package org.graph4j.iso.general;
+
+import org.graph4j.Digraph;
+import org.graph4j.Graph;
+
+/**
+ * Class for the VF3-Light algorithm for exact graph isomorphism.
+ *
+ * <p>Based on the paper "V. Carletti, P. Foggia, A. Greco, M. Vento, V. Vigilante, VF3-Light: A lightweight subgraph
+ * isomorphism algorithm and its experimental evaluation, Pattern Recognition Letters, 2019 (10.1016/j.patrec.2019.07.001)"</p>
+ *
+ * The vertices of the first graph are matched in an order computed from the probability to find compatible vertices in
+ * the second graph, and no terminal sets are kept. It is suited for small patterns in large sparse graphs.
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public class VF3LightExactGraphIsomorphism extends AbstractGraphIsomorphism {
+    public VF3LightExactGraphIsomorphism(Graph g1, Graph g2) {
+        super(g1, g2);
+    }
+
+    public VF3LightExactGraphIsomorphism(Graph g1, Graph g2, boolean cache) {
+        super(g1, g2, cache);
+    }
+
+    public VF3LightExactGraphIsomorphism(Graph g1, Graph g2, CacheMode cacheMode) {
+        super(g1, g2, cacheMode);
+    }
+
+    /**
+     * The ordered digraphs of the prepared graphs are reused.
+     */
+    public VF3LightExactGraphIsomorphism(PreparedGraph g1, PreparedGraph g2) {
+        super(g1, g2);
+    }
+
+    @Override
+    protected State getStateInstance(Digraph g1, Digraph g2, CacheMode cacheMode) {
+        return new VF3LightExactState(g1, g2, cacheMode);
+    }
+
+    @Override
+    protected State getStateInstance(OrderedDigraph o1, OrderedDigraph o2) {
+        return new VF3LightExactState(o1, o2);
+    }
+
+    @Override
+    protected boolean preparedGraphsCompatible() {
+        return prepared1.mayBeIsomorphicTo(prepared2);
+    }
+
+    @Override
+    protected State getNewStateInstance(State s) {
+        return new VF3LightExactState((VF3LightExactState) s);
+    }
+}
@@ -0,0 +1,59 @@
+package org.graph4j.iso.general;
+
+import org.graph4j.Digraph;
+
+/**
+ * Class for the VF3-Light algorithm for exact graph isomorphism.
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public class VF3LightExactState extends AbstractVF3LightState {
+    public VF3LightExactState(Digraph g1, Digraph g2) {
+        super(g1, g2);
+    }
+
+    public VF3LightExactState(Digraph g1, Digraph g2, boolean cache) {
+        super(g1, g2, cache);
+    }
+
+    public VF3LightExactState(Digraph g1, Digraph g2, CacheMode cacheMode) {
+        super(g1, g2, cacheMode);
+    }
+
+    public VF3LightExactState(OrderedDigraph o1, OrderedDigraph o2) {
+        super(o1, o2);
+    }
+
+    public VF3LightExactState(VF3LightExactState s) {
+        super(s);
+    }
+
+    /**
+     * For exact isomorphism, both graphs must have the same number of vertices in a certain class.
+     */
+    @Override
+    protected boolean labelCountsCompatible(int count1, int count2) {
+        return count1 == count2;
+    }
+
+    /**
+     * For exact isomorphism, the vertices must have the same in/out degree.
+     */
+    @Override
+    protected boolean degreesCompatible(int outdegree1, int indegree1, int outdegree2, int indegree2) {
+        return outdegree1 == outdegree2 && indegree1 == indegree2;
+    }
+
+    /**
+     * For exact isomorphism, a state is complete if all vertices from the both graphs are mapped.
+     */
+    @Override
+    public boolean isGoal() {
+        return core_len == n1 && core_len == n2;
+    }
+
+    @Override
+    public boolean isDead() {
+        return n1 != n2 || labelsMismatch;
+    }
+}
@@ -0,0 +1,61 @@
+package org.graph4j.iso.general;
+
+import org.graph4j.Digraph;
+
+/**
+ * Class for the VF3-Light algorithm for subgraph isomorphism.
+ *
+ * <p>
+ * The first graph is the subgraph and the second graph is the graph where we search the isomorphic subgraph.
+ * Just like VF2, the subgraph is induced.
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public class VF3LightSubState extends AbstractVF3LightState {
+    public VF3LightSubState(Digraph g1, Digraph g2) {
+        super(g1, g2);
+    }
+
+    public VF3LightSubState(Digraph g1, Digraph g2, boolean cache) {
+        super(g1, g2, cache);
+    }
+
+    public VF3LightSubState(Digraph g1, Digraph g2, CacheMode cacheMode) {
+        super(g1, g2, cacheMode);
+    }
+
+    public VF3LightSubState(OrderedDigraph o1, OrderedDigraph o2) {
+        super(o1, o2);
+    }
+
+    public VF3LightSubState(VF3LightSubState s) {
+        super(s);
+    }
+
+    /**
+     * For subgraph isomorphism, the second graph must have at least as many vertices in a certain class.
+     */
+    @Override
+    protected boolean labelCountsCompatible(int count1, int count2) {
+        return count1 <= count2;
+    }
+
+    @Override
+    protected boolean degreesCompatible(int outdegree1, int indegree1, int outdegree2, int indegree2) {
+        return outdegree1 <= outdegree2 && indegree1 <= indegree2;
+    }
+
+    /**
+     * For subgraph isomorphism, a state is complete if all vertices from the first graph are mapped.
+     */
+    @Override
+    public boolean isGoal() {
+        return core_len == n1;
+    }
+
+    @Override
+    public boolean isDead() {
+        return n1 > n2 || labelsMismatch;
+    }
+}
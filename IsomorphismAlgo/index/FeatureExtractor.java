@@ -0,0 +1,192 @@
+package org.graph4j.iso.index;
+
+import org.graph4j.iso.general.PreparedGraph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Extracts the features of a graph: its simple paths and simple cycles with at most maxLength edges,
+ * counted by their shape.
+ *
+ * <p>
+ *     A subgraph isomorphism(induced or not) maps the distinct paths and cycles of the pattern to distinct paths
+ *     and cycles of the target, with the same labels, so the target has at least as many occurrences of every feature.
+ * </p>
+ *
+ * <p>
+ *     Every path or cycle gives two features:
+ * </p>
+ * <ul>
+ *     <li>an unlabelled one, that depends only on its length(e.g. "p3" for the paths with 3 edges)</li>
+ *     <li>a labelled one, with the labels of its vertices in canonical order, only if all its vertices
+ *     are labelled(a missing label matches any label, so it cannot be part of a labelled feature)</li>
+ * </ul>
+ * <p>
+ *     The directions are followed in directed graphs; the self loops, the multiple edges and the labels of the edges
+ *     are ignored. The labels are compared by their string representation(toString).
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+final class FeatureExtractor {
+    static final char LABELLED_PATH = 'P', LABELLED_CYCLE = 'C';
+    static final char UNLABELLED_PATH = 'p', UNLABELLED_CYCLE = 'c';
+
+    private final int n;
+    private final int[][] adjacency;    // the distinct successors, without self loops
+    private final String[] labels;      // the encoded label of every vertex, null if it is missing
+    private final boolean directed;
+    private final int maxLength;
+
+    private final int[] path;
+    private final boolean[] onPath;
+    private final Map<String, Integer> counts = new HashMap<>();
+
+    /**
+     * @param graph the prepared graph
+     * @param useLabels if false, only the unlabelled features are extracted
+     * @param maxLength the maximum number of edges of a feature
+     */
+    FeatureExtractor(PreparedGraph graph, boolean useLabels, int maxLength) {
+        this.n = graph.numVertices();
+        this.directed = graph.isDirected();
+        this.maxLength = maxLength;
+
+        int[] offsets = graph.getSuccessorOffsets();
+        int[] targets = graph.getSuccessorTargets();
+        this.adjacency = new int[n][];
+        for (int i = 0; i < n; i++) {
+            // the successor lists are sorted, so the duplicates are consecutive
+            int[] row = new int[offsets[i + 1] - offsets[i]];
+            int size = 0;
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                int j = targets[k];
+                if (j != i && (size == 0 || row[size - 1] != j))
+                    row[size++] = j;
+            }
+            adjacency[i] = Arrays.copyOf(row, size);
+        }
+
+        this.labels = new String[n];
+        if (useLabels) {
+            for (int i = 0; i < n; i++) {
+                Object label = graph.getOrderedDigraph().getVertexLabel(i);
+                if (label != null) {
+                    String s = label.toString();
+                    labels[i] = s.length() + ":" + s;    // length prefixed, so the concatenations are unambiguous
+                }
+            }
+        }
+
+        this.path = new int[maxLength + 1];
+        this.onPath = new boolean[n];
+    }
+
+    /**
+     * @return the number of occurrences of every feature
+     */
+    Map<String, Integer> extract() {
+        for (int s = 0; s < n; s++) {
+            path[0] = s;
+            onPath[s] = true;
+            visit(1);
+            onPath[s] = false;
+        }
+        return counts;
+    }
+
+    /**
+     * Records the path path[0..len-1] and the cycle closed by it(if any), then extends it.
+     */
+    private void visit(int len) {
+        int last = path[len - 1];
+
+        // an undirected path is found from both ends, so it is counted only from its smaller end
+        if (directed || len == 1 || path[0] < last)
+            recordPath(len);
+
+        if (len - 1 == maxLength)
+            return;
+
+        for (int v : adjacency[last]) {
+            if (v == path[0])
+                recordCycle(len);
+            if (onPath[v])
+                continue;
+
+            path[len] = v;
+            onPath[v] = true;
+            visit(len + 1);
+            onPath[v] = false;
+        }
+    }
+
+    private void recordPath(int len) {
+        add(UNLABELLED_PATH + Integer.toString(len - 1));
+
+        StringBuilder forward = new StringBuilder().append(LABELLED_PATH);
+        for (int k = 0; k < len; k++) {
+            if (labels[path[k]] == null)
+                return;
+            forward.append(labels[path[k]]);
+        }
+        if (directed) {
+            add(forward.toString());
+            return;
+        }
+
+        StringBuilder backward = new StringBuilder().append(LABELLED_PATH);
+        for (int k = len - 1; k >= 0; k--)
+            backward.append(labels[path[k]]);
+        String f = forward.toString(), b = backward.toString();
+        add(f.compareTo(b) <= 0 ? f : b);
+    }
+
+    /**
+     * The cycle path[0..len-1], closed by the edge from path[len-1] to path[0]. A cycle is found from every vertex
+     * (and in both directions, if the graph is undirected), so it is counted only from its smallest vertex
+     * (and only in the direction where the second vertex is smaller than the last one).
+     */
+    private void recordCycle(int len) {
+        if (directed ? len < 2 : len < 3)
+            return;
+        for (int k = 1; k < len; k++)
+            if (path[k] < path[0])
+                return;
+        if (!directed && path[1] > path[len - 1])
+            return;
+
+        add(UNLABELLED_CYCLE + Integer.toString(len));
+
+        for (int k = 0; k < len; k++)
+            if (labels[path[k]] == null)
+                return;
+
+        // the smallest rotation(or reflection, if the graph is undirected)
+        String best = null;
+        for (int r = 0; r < len; r++) {
+            for (int dir = 0; dir < (directed ? 1 : 2); dir++) {
+                StringBuilder sb = new StringBuilder().append(LABELLED_CYCLE);
+                for (int k = 0; k < len; k++) {
+                    int p = dir == 0 ? (r + k) % len : (r - k + len) % len;
+                    sb.append(labels[path[p]]);
+                }
+                String s = sb.toString();
+                if (best == null || s.compareTo(best) < 0)
+                    best = s;
+            }
+        }
+        add(best);
+    }
+
+    private void add(String feature) {
+        counts.merge(feature, 1, Integer::sum);
+    }
+
+    static boolean isLabelled(String feature) {
+        char c = feature.charAt(0);
+        return c == LABELLED_PATH || c == LABELLED_CYCLE;
+    }
+}
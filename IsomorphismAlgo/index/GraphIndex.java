@@ -0,0 +1,360 @@
+package org.graph4j.iso.index;
+
+import org.graph4j.Graph;
+import org.graph4j.iso.general.MatchingSemantics;
+import org.graph4j.iso.general.PreparedGraph;
+import org.graph4j.iso.general.VF2SubGraphIsomorphism;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Index for subgraph queries over a collection of graphs: "which of the stored graphs contain this pattern".
+ *
+ * <p>
+ *     Based on the filter-and-verify approach of "R. Giugno, D. Shasha, GraphGrep: A fast and universal method
+ *     for querying graphs, ICPR 2002". The features of every stored graph(its labelled paths and cycles with at most
+ *     maxLength edges, see {@link FeatureExtractor}) are kept in an inverted index: for every feature, the graphs
+ *     that have it and the number of occurrences. A query extracts the features of the pattern, intersects their
+ *     posting lists(keeping only the graphs with at least as many occurrences) and runs VF2 only on the graphs
+ *     that survive the filter.
+ * </p>
+ *
+ * <p>
+ *     The graphs are identified by their position(the order in which they were added), and only their features
+ *     are stored: the verification asks for the graphs by position(e.g. from a list, or loaded from a database).
+ *     The index can be saved to a file and loaded back, so it is not rebuilt at every startup.
+ * </p>
+ *
+ * <p>
+ *     The labels of the vertices are compared by their string representation(toString), which must be consistent
+ *     with equals. A graph with unlabelled vertices is indexed only by the shape of its features(a missing label
+ *     matches any label). The index is not thread-safe while graphs are added, but it can be queried concurrently.
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public class GraphIndex {
+    public static final int DEFAULT_MAX_LENGTH = 4;
+
+    private static final int MAGIC = 0x47344958;    // "G4IX"
+    private static final int VERSION = 1;
+
+    private static final byte DIRECTED = 1, SELF_LOOPS = 2, MULTIPLE_EDGES = 4, FULLY_LABELLED = 8;
+
+    private final int maxLength;
+
+    // for every graph, by position
+    private int size;
+    private int[] numVertices = new int[16];
+    private long[] numEdges = new long[16];
+    private byte[] flags = new byte[16];
+    private final BitSet notFullyLabelled = new BitSet();
+
+    private final Map<String, Posting> postings = new HashMap<>();
+
+    /**
+     * The graphs that have a feature, in increasing order, and the number of occurrences in every graph.
+     */
+    private static class Posting {
+        int[] graphs;
+        int[] counts;
+        int size;
+
+        Posting(int capacity) {
+            this.graphs = new int[capacity];
+            this.counts = new int[capacity];
+        }
+
+        void add(int graph, int count) {
+            if (size == graphs.length) {
+                graphs = Arrays.copyOf(graphs, 2 * size);
+                counts = Arrays.copyOf(counts, 2 * size);
+            }
+            graphs[size] = graph;
+            counts[size++] = count;
+        }
+    }
+
+    /**
+     * @param maxLength the maximum number of edges of the indexed paths and cycles
+     * @throws IllegalArgumentException if maxLength is negative
+     */
+    public GraphIndex(int maxLength) {
+        if (maxLength < 0)
+            throw new IllegalArgumentException("Maximum feature length cannot be negative");
+        this.maxLength = maxLength;
+    }
+
+    public GraphIndex() {
+        this(DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * @param graphs the graphs to be indexed, at the positions 0, 1, ...
+     * @param maxLength the maximum number of edges of the indexed paths and cycles
+     * @return the index of the graphs
+     */
+    public static GraphIndex build(Iterable<? extends Graph> graphs, int maxLength) {
+        if (graphs == null)
+            throw new NullPointerException("Graphs cannot be null");
+
+        GraphIndex index = new GraphIndex(maxLength);
+        for (Graph g : graphs)
+            index.add(g);
+        return index;
+    }
+
+    public static GraphIndex build(Iterable<? extends Graph> graphs) {
+        return build(graphs, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * Indexes a new graph.
+     * @param graph the graph
+     * @return the position of the graph in the index
+     * @throws NullPointerException if the graph is null
+     */
+    public int add(Graph graph) {
+        if (graph == null)
+            throw new NullPointerException("Graph cannot be null");
+
+        PreparedGraph prepared = new PreparedGraph(graph);
+        boolean fullyLabelled = prepared.getLabelCounts() != null;
+
+        int id = size;
+        ensureCapacity(id + 1);
+        numVertices[id] = prepared.numVertices();
+        numEdges[id] = prepared.numEdges();
+        flags[id] = (byte) (typeOf(prepared) | (fullyLabelled ? FULLY_LABELLED : 0));
+        if (!fullyLabelled)
+            notFullyLabelled.set(id);
+
+        for (Map.Entry<String, Integer> e : new FeatureExtractor(prepared, fullyLabelled, maxLength).extract().entrySet())
+            postings.computeIfAbsent(e.getKey(), k -> new Posting(4)).add(id, e.getValue());
+
+        size++;
+        return id;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > flags.length) {
+            int newCapacity = Math.max(capacity, 2 * flags.length);
+            numVertices = Arrays.copyOf(numVertices, newCapacity);
+            numEdges = Arrays.copyOf(numEdges, newCapacity);
+            flags = Arrays.copyOf(flags, newCapacity);
+        }
+    }
+
+    private static byte typeOf(PreparedGraph graph) {
+        return (byte) ((graph.isDirected() ? DIRECTED : 0) |
+                (graph.isAllowingSelfLoops() ? SELF_LOOPS : 0) |
+                (graph.isAllowingMultipleEdges() ? MULTIPLE_EDGES : 0));
+    }
+
+    /**
+     * The filter step: the graphs that may contain the pattern, by the number of vertices and edges and by the features.
+     * @param pattern the pattern
+     * @param semantics how the pattern must occur(for EXACT, the graphs must also have the same size)
+     * @return the positions of the candidate graphs, in increasing order
+     * @throws NullPointerException if the pattern or the semantics is null
+     */
+    public int[] candidates(Graph pattern, MatchingSemantics semantics) {
+        if (pattern == null)
+            throw new NullPointerException("Pattern cannot be null");
+        return candidates(new PreparedGraph(pattern), semantics);
+    }
+
+    private int[] candidates(PreparedGraph pattern, MatchingSemantics semantics) {
+        if (semantics == null)
+            throw new NullPointerException("Matching semantics cannot be null");
+
+        byte type = typeOf(pattern);
+        int n = pattern.numVertices();
+        long m = pattern.numEdges();
+
+        BitSet result = new BitSet(size);
+        for (int id = 0; id < size; id++) {
+            if ((flags[id] & ~FULLY_LABELLED) != type)
+                continue;
+            boolean sizeOk = semantics == MatchingSemantics.EXACT ?
+                    numVertices[id] == n && numEdges[id] == m :
+                    numVertices[id] >= n && numEdges[id] >= m;
+            if (sizeOk)
+                result.set(id);
+        }
+
+        // the labelled features of the pattern are checked only in the fully labelled graphs
+        Map<String, Integer> features = new FeatureExtractor(pattern, true, maxLength).extract();
+
+        // the rarest features first, they remove the most candidates
+        List<Map.Entry<String, Integer>> order = new ArrayList<>(features.entrySet());
+        order.sort((a, b) -> Integer.compare(postingSize(a.getKey()), postingSize(b.getKey())));
+
+        for (Map.Entry<String, Integer> e : order) {
+            if (result.isEmpty())
+                break;
+
+            BitSet allowed = new BitSet(size);
+            Posting posting = postings.get(e.getKey());
+            if (posting != null) {
+                for (int k = 0; k < posting.size; k++)
+                    if (posting.counts[k] >= e.getValue())
+                        allowed.set(posting.graphs[k]);
+            }
+            if (FeatureExtractor.isLabelled(e.getKey()))
+                allowed.or(notFullyLabelled);
+            result.and(allowed);
+        }
+        return result.stream().toArray();
+    }
+
+    private int postingSize(String feature) {
+        Posting posting = postings.get(feature);
+        return posting == null ? 0 : posting.size;
+    }
+
+    /**
+     * The filter and the verification steps: the candidate graphs are checked with {@link VF2SubGraphIsomorphism}.
+     * @param pattern the pattern
+     * @param semantics how the pattern must occur
+     * @param graphs the stored graphs, by position(only the candidates are requested)
+     * @return the positions of the graphs that contain the pattern, in increasing order
+     * @throws NullPointerException if an argument is null, or a requested graph is missing
+     */
+    public int[] query(Graph pattern, MatchingSemantics semantics, IntFunction<? extends Graph> graphs) {
+        if (pattern == null)
+            throw new NullPointerException("Pattern cannot be null");
+        if (graphs == null)
+            throw new NullPointerException("Graphs cannot be null");
+
+        PreparedGraph prepared = new PreparedGraph(pattern);
+        int[] candidates = candidates(prepared, semantics);
+
+        int[] matches = new int[candidates.length];
+        int count = 0;
+        for (int id : candidates) {
+            Graph target = graphs.apply(id);
+            if (target == null)
+                throw new NullPointerException("Graph " + id + " is missing");
+
+            if (new VF2SubGraphIsomorphism(prepared, new PreparedGraph(target), semantics).areIsomorphic())
+                matches[count++] = id;
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Uses the INDUCED semantics, like {@link VF2SubGraphIsomorphism}.
+     */
+    public int[] query(Graph pattern, IntFunction<? extends Graph> graphs) {
+        return query(pattern, MatchingSemantics.INDUCED, graphs);
+    }
+
+    /**
+     * @return the number of indexed graphs
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * @return the number of distinct features
+     */
+    public int numFeatures() {
+        return postings.size();
+    }
+
+    /**
+     * Saves the index in a binary file.
+     * @param file the file, overwritten if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(maxLength);
+
+            out.writeInt(size);
+            for (int id = 0; id < size; id++) {
+                out.writeInt(numVertices[id]);
+                out.writeLong(numEdges[id]);
+                out.writeByte(flags[id]);
+            }
+
+            out.writeInt(postings.size());
+            for (Map.Entry<String, Posting> e : postings.entrySet()) {
+                byte[] key = e.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(key.length);
+                out.write(key);
+
+                Posting posting = e.getValue();
+                out.writeInt(posting.size);
+                for (int k = 0; k < posting.size; k++) {
+                    out.writeInt(posting.graphs[k]);
+                    out.writeInt(posting.counts[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads an index saved by {@link #save(Path)}.
+     * @param file the file
+     * @return the index, to which more graphs can be added
+     * @throws IOException if the file cannot be read or it is not an index file
+     */
+    public static GraphIndex load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not a graph index file: " + file);
+            int version = in.readInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported graph index version: " + version);
+
+            GraphIndex index = new GraphIndex(in.readInt());
+
+            int size = in.readInt();
+            index.ensureCapacity(size);
+            for (int id = 0; id < size; id++) {
+                index.numVertices[id] = in.readInt();
+                index.numEdges[id] = in.readLong();
+                index.flags[id] = in.readByte();
+                if ((index.flags[id] & FULLY_LABELLED) == 0)
+                    index.notFullyLabelled.set(id);
+            }
+            index.size = size;
+
+            int numFeatures = in.readInt();
+            for (int f = 0; f < numFeatures; f++) {
+                byte[] key = new byte[in.readInt()];
+                in.readFully(key);
+
+                int postingSize = in.readInt();
+                Posting posting = new Posting(Math.max(postingSize, 1));
+                for (int k = 0; k < postingSize; k++)
+                    posting.add(in.readInt(), in.readInt());
+                index.postings.put(new String(key, StandardCharsets.UTF_8), posting);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package org.graph4j.iso.store;
+
+import org.graph4j.Graph;
+import org.graph4j.iso.GraphUtil;
+import org.graph4j.iso.general.CacheMode;
+import org.graph4j.iso.general.OrderedDigraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A collection of graphs in a compact binary file, read through memory mapping.
+ *
+ * <p>
+ *     Every graph is stored as it is used by the isomorphism algorithms: the vertices in the order of
+ *     {@link OrderedDigraph}, the successors and the predecessors in CSR form(compressed sparse rows, sorted),
+ *     the vertex numbers and the labels, as positions in a dictionary shared by all the graphs.
+ *     Opening the store maps the file({@link FileChannel#map}) and reads only the header, and a graph is read
+ *     from the mapped pages when it is accessed, so loading a corpus costs little more than the page faults.
+ * </p>
+ *
+ * <p>
+ *     The graphs are returned as {@link StoredGraph} views, which are ordered digraphs themselves, so the matchers
+ *     use them directly(see {@link StoredGraph#prepare()}), without building graph4j graphs.
+ * </p>
+ *
+ * <p>
+ *     Only the graphs without self loops and multiple edges are supported(directed or not). The labels are stored
+ *     by their string representation(toString), and the weights of the edges are not stored.
+ * </p>
+ *
+ * <p>
+ *     File format(little endian): a header(magic, version, number of graphs, the offsets of the table and of
+ *     the dictionary), the graph records, the table with the offset of every record, and the dictionary of labels.
+ *     A record never crosses a 1 GiB boundary, so every part of the file is mapped by a single buffer.
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public final class GraphStore implements AutoCloseable {
+    private static final int MAGIC = 0x47344753;    // "G4GS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+
+    static final int NO_LABEL = -1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;    // the records, by 1 GiB chunks
+    private final LongBuffer table;             // the offset of every record
+    private final IntBuffer labelOffsets;       // the label i is labelBytes[labelOffsets[i] .. labelOffsets[i + 1])
+    private final ByteBuffer labelBytes;
+    private final String[] labels;              // the labels that were already decoded
+    private final int size;
+
+    private GraphStore(FileChannel channel, Path file) throws IOException {
+        this.channel = channel;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining())
+            if (channel.read(header, header.position()) < 0)
+                throw new IOException("Not a graph store file: " + file);
+        header.flip();
+
+        if (header.getInt() != MAGIC)
+            throw new IOException("Not a graph store file: " + file);
+        int version = header.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported graph store version: " + version);
+        this.size = header.getInt();
+        header.getInt();
+        long tableOffset = header.getLong();
+        long dictionaryOffset = header.getLong();
+
+        int numChunks = (int) ((tableOffset + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+        this.chunks = new MappedByteBuffer[numChunks];
+        for (int k = 0; k < numChunks; k++) {
+            long start = (long) k << CHUNK_SHIFT;
+            chunks[k] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, tableOffset - start));
+            chunks[k].order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        this.table = channel.map(FileChannel.MapMode.READ_ONLY, tableOffset, 8L * size)
+                .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+
+        ByteBuffer dictionary = channel.map(FileChannel.MapMode.READ_ONLY, dictionaryOffset,
+                channel.size() - dictionaryOffset).order(ByteOrder.LITTLE_ENDIAN);
+        int numLabels = dictionary.getInt(0);
+        int bytesStart = 4 + 4 * (numLabels + 1);
+        this.labelOffsets = dictionary.slice(4, 4 * (numLabels + 1)).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        this.labelBytes = dictionary.slice(bytesStart, dictionary.capacity() - bytesStart);
+        this.labels = new String[numLabels];
+    }
+
+    /**
+     * Opens a store written by {@link #write(Path, Iterable)}. Only the header is read.
+     * @param file the file
+     * @return the store
+     * @throws IOException if the file cannot be read or it is not a graph store
+     */
+    public static GraphStore open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new GraphStore(channel, file);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of graphs in the store
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a view of the graph, without reading its adjacency(it is read from the mapped file when it is used).
+     * @param position the position of the graph, in the order in which the graphs were written
+     * @return the stored graph
+     * @throws IndexOutOfBoundsException if there is no graph at the given position
+     */
+    public StoredGraph get(int position) {
+        if (position < 0 || position >= size)
+            throw new IndexOutOfBoundsException("Graph " + position + " is not in the store");
+
+        long offset = table.get(position);
+        MappedByteBuffer chunk = chunks[(int) (offset >>> CHUNK_SHIFT)];
+        int start = (int) (offset & (CHUNK_SIZE - 1));
+
+        int n = chunk.getInt(start);
+        int m = chunk.getInt(start + 4);
+        IntBuffer record = chunk.slice(start, (int) (4 * StoredGraph.recordInts(n, m)))
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        return new StoredGraph(this, record);
+    }
+
+    /**
+     * @param id the position of the label in the dictionary, or NO_LABEL
+     * @return the label, or null
+     */
+    String label(int id) {
+        if (id == NO_LABEL)
+            return null;
+
+        // the decoded labels are immutable strings, so a label decoded twice by two threads is harmless
+        String label = labels[id];
+        if (label == null) {
+            int from = labelOffsets.get(id), to = labelOffsets.get(id + 1);
+            byte[] bytes = new byte[to - from];
+            labelBytes.get(from, bytes);
+            label = new String(bytes, StandardCharsets.UTF_8);
+            labels[id] = label;
+        }
+        return label;
+    }
+
+    /**
+     * Closes the file. The graphs that were already returned stay readable, while the mapping exists.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes the graphs in a new store.
+     * @param file the file, overwritten if it exists
+     * @param graphs the graphs, stored at the positions 0, 1, ...
+     * @return the number of written graphs
+     * @throws IOException if the file cannot be written
+     * @throws NullPointerException if the graphs or some graph are null
+     * @throws IllegalArgumentException if a graph allows self loops or multiple edges, or it is larger than 1 GiB
+     */
+    public static int write(Path file, Iterable<? extends Graph> graphs) throws IOException {
+        if (graphs == null)
+            throw new NullPointerException("Graphs cannot be null");
+
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> labels = new ArrayList<>();
+        long[] offsets = new long[16];
+        int count = 0;
+
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long pos = HEADER_SIZE;
+            for (Graph g : graphs) {
+                ByteBuffer record = encode(g, dictionary, labels);
+                int length = record.remaining();
+
+                // a record must not cross a chunk boundary, the gap is left empty
+                if ((pos >>> CHUNK_SHIFT) != ((pos + length - 1) >>> CHUNK_SHIFT))
+                    pos = ((pos >>> CHUNK_SHIFT) + 1) << CHUNK_SHIFT;
+
+                writeFully(out, record, pos);
+                if (count == offsets.length)
+                    offsets = Arrays.copyOf(offsets, 2 * count);
+                offsets[count++] = pos;
+                pos += length;
+            }
+
+            long tableOffset = (pos + 7) & ~7L;
+            ByteBuffer table = ByteBuffer.allocate(8 * count).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < count; i++)
+                table.putLong(offsets[i]);
+            table.flip();
+            writeFully(out, table, tableOffset);
+
+            long dictionaryOffset = tableOffset + 8L * count;
+            writeFully(out, encodeDictionary(labels), dictionaryOffset);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0).putLong(tableOffset).putLong(dictionaryOffset);
+            header.flip();
+            writeFully(out, header, 0);
+        }
+        return count;
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            position += out.write(buffer, position);
+    }
+
+    /**
+     * The record of a graph, with the layout read by {@link StoredGraph}.
+     */
+    private static ByteBuffer encode(Graph<?,?> g, Map<String, Integer> dictionary, List<String> labels) {
+        if (g == null)
+            throw new NullPointerException("Graph cannot be null");
+        if (g.isAllowingSelfLoops() || g.isAllowingMultipleEdges())
+            throw new IllegalArgumentException("The graph store supports only graphs without self loops and multiple edges");
+
+        OrderedDigraph o = new OrderedDigraph(GraphUtil.convertToDigraph(g), CacheMode.SPARSE);
+        int n = o.getNumVertices();
+        long edges = 0;
+        for (int i = 0; i < n; i++)
+            edges += o.successors(i).length;
+
+        long bytes = 4L * StoredGraph.recordInts(n, edges);
+        if (bytes > CHUNK_SIZE)
+            throw new IllegalArgumentException("Graph is too large for the store");
+        int m = (int) edges;
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) bytes).order(ByteOrder.LITTLE_ENDIAN);
+        IntBuffer record = buffer.asIntBuffer();    // writes through to the buffer
+        record.put(n).put(m).put(g.isDirected() ? StoredGraph.DIRECTED : 0).put(0);
+        for (int i = 0; i < n; i++)
+            record.put(o.getVertexNumber(i));
+        for (int i = 0; i < n; i++)
+            record.put(o.getIndexInGraph(i));
+        for (int i = 0; i < n; i++)
+            record.put(labelId(o.getVertexLabel(i), dictionary, labels));
+
+        // the successors, with the labels of the edges
+        int offset = 0;
+        for (int i = 0; i <= n; i++) {
+            record.put(offset);
+            if (i < n)
+                offset += o.successors(i).length;
+        }
+        for (int i = 0; i < n; i++)
+            for (int j : o.successors(i))
+                record.put(j);
+        for (int i = 0; i < n; i++)
+            for (int j : o.successors(i))
+                record.put(labelId(o.getEdgeLabel(i, j), dictionary, labels));
+
+        // the predecessors
+        offset = 0;
+        for (int i = 0; i <= n; i++) {
+            record.put(offset);
+            if (i < n)
+                offset += o.predecessors(i).length;
+        }
+        for (int i = 0; i < n; i++)
+            for (int j : o.predecessors(i))
+                record.put(j);
+
+        return buffer;
+    }
+
+    private static int labelId(Object label, Map<String, Integer> dictionary, List<String> labels) {
+        if (label == null)
+            return NO_LABEL;
+        return dictionary.computeIfAbsent(label.toString(), s -> {
+            labels.add(s);
+            return labels.size() - 1;
+        });
+    }
+
+    private static ByteBuffer encodeDictionary(List<String> labels) {
+        byte[][] encoded = new byte[labels.size()][];
+        int total = 0;
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = labels.get(i).getBytes(StandardCharsets.UTF_8);
+            total += encoded[i].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 4 * (encoded.length + 1) + total).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(encoded.length);
+        int offset = 0;
+        for (int i = 0; i <= encoded.length; i++) {
+            buffer.putInt(offset);
+            if (i < encoded.length)
+                offset += encoded[i].length;
+        }
+        for (byte[] label : encoded)
+            buffer.put(label);
+        buffer.flip();
+        return buffer;
+    }
+}
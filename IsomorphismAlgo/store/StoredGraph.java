@@ -0,0 +1,306 @@
+package org.graph4j.iso.store;
+
+import org.graph4j.Digraph;
+import org.graph4j.Edge;
+import org.graph4j.GraphBuilder;
+import org.graph4j.iso.general.OrderedDigraph;
+import org.graph4j.iso.general.PreparedGraph;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * A graph of a {@link GraphStore}, read directly from the mapped file.
+ *
+ * <p>
+ *     The view is an ordered digraph(the vertices are stored in the order of {@link OrderedDigraph}),
+ *     so the isomorphism algorithms work on it without building a graph4j graph, e.g.
+ *     {@code new VF2SubGraphIsomorphism(store.get(i).prepare(), store.get(j).prepare()).areIsomorphic()}.
+ *     The graph4j digraph is built only if it is requested by {@link #getGraph()}(e.g. for building an
+ *     {@link org.graph4j.iso.IsomorphicGraphMapping}). An undirected graph is stored like its converted digraph,
+ *     with every edge in both directions.
+ * </p>
+ *
+ * <p>
+ *     The successors and the predecessors are copied from the file when they are first used;
+ *     {@link #fillCache()} must be called before the view is shared by several threads.
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public class StoredGraph extends OrderedDigraph {
+    static final int DIRECTED = 1;
+
+    // the layout of a record, in ints: n, m, flags, reserved, then the sections below
+    private static final int HEADER = 4;
+
+    private final GraphStore store;
+    private final IntBuffer record;
+    private final int m;
+    private final boolean directed;
+
+    // the positions of the sections in the record
+    private final int vertices;          // the vertex number of every position in the order
+    private final int indices;           // the index in the original graph of every position
+    private final int vertexLabels;      // the label ids
+    private final int successorOffsets;  // n + 1 offsets in successorTargets
+    private final int successorTargets;  // m sorted positions, row by row
+    private final int edgeLabels;        // the label id of every successor
+    private final int predecessorOffsets;
+    private final int predecessorTargets;
+
+    private final int[][] successorRows, predecessorRows;  // the rows that were already read
+    private volatile long[][] successorBitRows, predecessorBitRows;  // built all at once, on the first request
+    private long[] vertexOrder;          // (vertex number << 32 | position), sorted, built on the first lookup
+    private Digraph<?,?> digraph;        // built on request
+
+    StoredGraph(GraphStore store, IntBuffer record) {
+        super(record.get(0));
+        this.store = store;
+        this.record = record;
+        this.m = record.get(1);
+        this.directed = (record.get(2) & DIRECTED) != 0;
+
+        this.vertices = HEADER;
+        this.indices = vertices + n;
+        this.vertexLabels = indices + n;
+        this.successorOffsets = vertexLabels + n;
+        this.successorTargets = successorOffsets + n + 1;
+        this.edgeLabels = successorTargets + m;
+        this.predecessorOffsets = edgeLabels + m;
+        this.predecessorTargets = predecessorOffsets + n + 1;
+
+        this.successorRows = new int[n][];
+        this.predecessorRows = new int[n][];
+    }
+
+    /**
+     * @return the number of ints of the record of a graph with n vertices and m edges(in the converted digraph)
+     */
+    static long recordInts(int n, long m) {
+        return HEADER + 5L * n + 2 + 3 * m;
+    }
+
+    /**
+     * @return a prepared graph over this view, for the matchers
+     */
+    public PreparedGraph prepare() {
+        return new PreparedGraph(this, directed);
+    }
+
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * @return the number of edges of the converted digraph(every undirected edge is counted in both directions)
+     */
+    public int numEdges() {
+        return m;
+    }
+
+    @Override
+    public int getVertexNumber(int vertexIndex) {
+        return record.get(vertices + vertexIndex);
+    }
+
+    @Override
+    public int getIndexInGraph(int vertexIndex) {
+        return record.get(indices + vertexIndex);
+    }
+
+    @Override
+    public synchronized int getVertexOrder(int vertexNumber) {
+        if (vertexOrder == null) {
+            long[] keys = new long[n];
+            for (int i = 0; i < n; i++)
+                keys[i] = ((long) getVertexNumber(i) << 32) | i;
+            Arrays.sort(keys);
+            vertexOrder = keys;
+        }
+
+        int p = Arrays.binarySearch(vertexOrder, (long) vertexNumber << 32);
+        if (p < 0)
+            p = -p - 1;
+        if (p == n || (int) (vertexOrder[p] >>> 32) != vertexNumber)
+            throw new IllegalArgumentException("Vertex " + vertexNumber + " is not in the graph");
+        return (int) vertexOrder[p];
+    }
+
+    @Override
+    public Object getVertexLabel(int vertexIndex) {
+        return store.label(record.get(vertexLabels + vertexIndex));
+    }
+
+    @Override
+    public Object getEdgeLabel(int vertexIndex1, int vertexIndex2) {
+        int p = find(successorTargets + record.get(successorOffsets + vertexIndex1),
+                successorTargets + record.get(successorOffsets + vertexIndex1 + 1), vertexIndex2);
+        return p < 0 ? null : store.label(record.get(edgeLabels + (p - successorTargets)));
+    }
+
+    @Override
+    public int[] successors(int vertexIndex) {
+        int[] row = successorRows[vertexIndex];
+        if (row == null) {
+            row = readRow(successorOffsets, successorTargets, vertexIndex);
+            successorRows[vertexIndex] = row;
+        }
+        return row;
+    }
+
+    @Override
+    public int[] predecessors(int vertexIndex) {
+        int[] row = predecessorRows[vertexIndex];
+        if (row == null) {
+            row = readRow(predecessorOffsets, predecessorTargets, vertexIndex);
+            predecessorRows[vertexIndex] = row;
+        }
+        return row;
+    }
+
+    private int[] readRow(int offsets, int targets, int vertexIndex) {
+        int from = record.get(offsets + vertexIndex);
+        int to = record.get(offsets + vertexIndex + 1);
+        int[] row = new int[to - from];
+        record.get(targets + from, row);
+        return row;
+    }
+
+    /**
+     * Binary search in the sorted range [from, to) of the record, directly in the mapped file.
+     * @return the position of the value in the record, or -1
+     */
+    private int find(int from, int to, int value) {
+        int lo = from, hi = to - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int v = record.get(mid);
+            if (v < value)
+                lo = mid + 1;
+            else if (v > value)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean containsEdge(int vertexIndex1, int vertexIndex2) {
+        // search in the shorter of the two sorted lists
+        int succFrom = record.get(successorOffsets + vertexIndex1);
+        int succTo = record.get(successorOffsets + vertexIndex1 + 1);
+        int predFrom = record.get(predecessorOffsets + vertexIndex2);
+        int predTo = record.get(predecessorOffsets + vertexIndex2 + 1);
+        return succTo - succFrom <= predTo - predFrom ?
+                find(successorTargets + succFrom, successorTargets + succTo, vertexIndex2) >= 0 :
+                find(predecessorTargets + predFrom, predecessorTargets + predTo, vertexIndex1) >= 0;
+    }
+
+    @Override
+    public Edge getEdge(int vertexIndex1, int vertexIndex2) {
+        if (!containsEdge(vertexIndex1, vertexIndex2))
+            return null;
+        return getGraph().edge(getVertexNumber(vertexIndex1), getVertexNumber(vertexIndex2));
+    }
+
+    @Override
+    public int outdegree(int vertexIndex) {
+        return record.get(successorOffsets + vertexIndex + 1) - record.get(successorOffsets + vertexIndex);
+    }
+
+    @Override
+    public int indegree(int vertexIndex) {
+        return record.get(predecessorOffsets + vertexIndex + 1) - record.get(predecessorOffsets + vertexIndex);
+    }
+
+    /**
+     * The bit rows are not stored, they are built from the successor and predecessor rows when they are first used
+     * (n * n bits for each direction, e.g. by the bit-parallel Ullmann algorithm).
+     */
+    @Override
+    public boolean hasBitRows() {
+        return true;
+    }
+
+    @Override
+    public long[] successorBits(int vertexIndex) {
+        long[][] rows = successorBitRows;
+        if (rows == null)
+            rows = buildBitRows(true);
+        return rows[vertexIndex];
+    }
+
+    @Override
+    public long[] predecessorBits(int vertexIndex) {
+        long[][] rows = predecessorBitRows;
+        if (rows == null)
+            rows = buildBitRows(false);
+        return rows[vertexIndex];
+    }
+
+    private synchronized long[][] buildBitRows(boolean successors) {
+        long[][] rows = successors ? successorBitRows : predecessorBitRows;
+        if (rows != null)
+            return rows;
+
+        rows = new long[n][(n + 63) >>> 6];
+        for (int i = 0; i < n; i++) {
+            // read from the file, the cached rows may not be filled yet
+            int[] row = successors ? readRow(successorOffsets, successorTargets, i) :
+                    readRow(predecessorOffsets, predecessorTargets, i);
+            for (int j : row)
+                rows[i][j >>> 6] |= 1L << j;
+        }
+
+        if (successors)
+            successorBitRows = rows;
+        else
+            predecessorBitRows = rows;
+        return rows;
+    }
+
+    /**
+     * Reads all the successors and predecessors, so the view is only read afterwards.
+     */
+    @Override
+    public void fillCache() {
+        for (int i = 0; i < n; i++) {
+            successors(i);
+            predecessors(i);
+        }
+    }
+
+    /**
+     * Builds the graph4j digraph of the stored graph, the first time it is requested. The vertices have the same
+     * numbers and indices as in the original graph, and the labels are strings.
+     * @return the digraph(for an undirected graph, its converted digraph)
+     */
+    @Override
+    public synchronized Digraph getGraph() {
+        if (digraph == null) {
+            int[] numbers = new int[n];
+            for (int i = 0; i < n; i++)
+                numbers[getIndexInGraph(i)] = getVertexNumber(i);
+
+            Digraph<Object, Object> dg = GraphBuilder.vertices(numbers).estimatedNumEdges(m).buildDigraph();
+            for (int i = 0; i < n; i++) {
+                Object label = getVertexLabel(i);
+                if (label != null)
+                    dg.setVertexLabel(getVertexNumber(i), label);
+            }
+            for (int i = 0; i < n; i++) {
+                for (int j : successors(i)) {
+                    int u = getVertexNumber(i), v = getVertexNumber(j);
+                    dg.addEdge(u, v);
+                    Object label = getEdgeLabel(i, j);
+                    if (label != null)
+                        dg.setEdgeLabel(u, v, label);
+                }
+            }
+            digraph = dg;
+        }
+        return digraph;
+    }
+}
@@ -0,0 +1,84 @@
+package org.graph4j.iso.bench;
+
+import org.graph4j.Graph;
+import org.graph4j.iso.IsomorphicGraphMapping;
+import org.graph4j.iso.general.AbstractGraphIsomorphism;
+import org.graph4j.iso.general.SearchBudget;
+import org.graph4j.iso.general.SearchResult;
+import org.graph4j.iso.general.UllmanExactGraphIsomorphism;
+import org.graph4j.iso.general.VF2ExactGraphIsomorphism;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exact isomorphism between a generated graph and a random renumbering of it, for VF2 and Ullman.
+ *
+ * <p>
+ *     The graphs are generated once per trial, the matcher is created on every invocation
+ *     (the construction of the ordered digraphs is part of the measured time, as in a real call).
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExactIsomorphismBenchmark {
+    // getAllMappings() is bounded: graphs with many automorphisms(e.g. trees) have too many mappings
+    public static final long MAX_STATES = 1_000_000;
+
+    public enum Algorithm {
+        VF2, ULLMAN
+    }
+
+    @Param({"VF2", "ULLMAN"})
+    public Algorithm algorithm;
+
+    @Param({"RANDOM", "REGULAR", "GRID", "TREE"})
+    public GraphFamilies.Family family;
+
+    @Param({"20", "60"})
+    public int n;
+
+    @Param({"false", "true"})
+    public boolean labelled;
+
+    @Param({"false", "true"})
+    public boolean cache;
+
+    private Graph<String, String> g1, g2;
+    private SearchBudget budget;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(n * 31L + family.ordinal());
+        g1 = GraphFamilies.generate(family, n, random);
+        if (labelled)
+            GraphFamilies.label(g1, random);
+        g2 = GraphFamilies.permuted(g1, random);
+        budget = SearchBudget.unlimited().withMaxStates(MAX_STATES);
+    }
+
+    private AbstractGraphIsomorphism newMatcher() {
+        return switch (algorithm) {
+            case VF2 -> new VF2ExactGraphIsomorphism(g1, g2, cache);
+            case ULLMAN -> new UllmanExactGraphIsomorphism(g1, g2, cache);
+        };
+    }
+
+    @Benchmark
+    public Optional<IsomorphicGraphMapping> getMapping() {
+        return newMatcher().getMapping();
+    }
+
+    @Benchmark
+    public SearchResult getAllMappings() {
+        return newMatcher().getAllMappings(budget);
+    }
+}
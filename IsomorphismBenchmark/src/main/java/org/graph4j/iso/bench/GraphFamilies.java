@@ -0,0 +1,200 @@
+package org.graph4j.iso.bench;
+
+import org.graph4j.Edge;
+import org.graph4j.Graph;
+import org.graph4j.GraphBuilder;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+
+/**
+ * Generators for the graph families used by the benchmarks.
+ *
+ * <p>
+ *     All the generated graphs have the vertices 0..n-1 and depend only on the given random generator,
+ *     so the inputs are the same in every run.
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+public final class GraphFamilies {
+    public static final double RANDOM_EDGE_PROBABILITY = 0.1;
+    public static final int REGULAR_DEGREE = 3;
+    public static final String[] LABELS = {"A", "B", "C"};
+
+    public enum Family {
+        RANDOM,     // G(n, p), with p = RANDOM_EDGE_PROBABILITY
+        REGULAR,    // random REGULAR_DEGREE-regular graph
+        GRID,       // rows x columns grid, as close to a square as possible
+        TREE        // random recursive tree
+    }
+
+    private GraphFamilies() {
+    }
+
+    /**
+     * @param family the graph family
+     * @param n the number of vertices(for grids, the largest rows x columns that is at most n)
+     * @param random the random generator
+     * @return a graph of the given family
+     */
+    public static Graph<String, String> generate(Family family, int n, Random random) {
+        return switch (family) {
+            case RANDOM -> randomGraph(n, RANDOM_EDGE_PROBABILITY, random);
+            case REGULAR -> randomRegularGraph(n, REGULAR_DEGREE, random);
+            case GRID -> grid(n);
+            case TREE -> randomTree(n, random);
+        };
+    }
+
+    /**
+     * Erdos-Renyi G(n, p) graph: every edge exists with probability p.
+     */
+    public static Graph<String, String> randomGraph(int n, double p, Random random) {
+        Graph<String, String> g = GraphBuilder.numVertices(n).buildGraph();
+        for (int u = 0; u < n; u++)
+            for (int v = u + 1; v < n; v++)
+                if (random.nextDouble() < p)
+                    g.addEdge(u, v);
+        return g;
+    }
+
+    /**
+     * Random regular graph, by the pairing model: n * degree points are paired at random, until the pairing
+     * has no self loops and no multiple edges.
+     * @throws IllegalArgumentException if n * degree is odd, or degree >= n
+     */
+    public static Graph<String, String> randomRegularGraph(int n, int degree, Random random) {
+        if ((n * degree) % 2 != 0 || degree >= n)
+            throw new IllegalArgumentException("There is no " + degree + "-regular graph with " + n + " vertices");
+
+        int[] points = new int[n * degree];
+        for (int i = 0; i < points.length; i++)
+            points[i] = i / degree;
+
+        while (true) {
+            shuffle(points, random);
+
+            Graph<String, String> g = GraphBuilder.numVertices(n).buildGraph();
+            boolean simple = true;
+            for (int i = 0; i < points.length && simple; i += 2) {
+                int u = points[i], v = points[i + 1];
+                if (u == v || g.containsEdge(u, v))
+                    simple = false;
+                else
+                    g.addEdge(u, v);
+            }
+
+            if (simple)
+                return g;
+        }
+    }
+
+    /**
+     * @return a rows x columns grid with at most n vertices, where rows = floor(sqrt(n))
+     */
+    public static Graph<String, String> grid(int n) {
+        int rows = Math.max(1, (int) Math.sqrt(n));
+        int columns = Math.max(1, n / rows);
+
+        Graph<String, String> g = GraphBuilder.numVertices(rows * columns).buildGraph();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                int v = r * columns + c;
+                if (c + 1 < columns)
+                    g.addEdge(v, v + 1);
+                if (r + 1 < rows)
+                    g.addEdge(v, v + columns);
+            }
+        }
+        return g;
+    }
+
+    /**
+     * Random recursive tree: the parent of the vertex i is chosen uniformly from 0..i-1.
+     */
+    public static Graph<String, String> randomTree(int n, Random random) {
+        Graph<String, String> g = GraphBuilder.numVertices(n).buildGraph();
+        for (int v = 1; v < n; v++)
+            g.addEdge(random.nextInt(v), v);
+        return g;
+    }
+
+    /**
+     * Sets a random label from LABELS to every vertex.
+     */
+    public static void label(Graph<String, String> g, Random random) {
+        for (int v : g.vertices())
+            g.setVertexLabel(v, LABELS[random.nextInt(LABELS.length)]);
+    }
+
+    /**
+     * @param permutation: filled with the new number of every vertex(it must have the length g.numVertices())
+     * @return an isomorphic copy of g, with the vertices renumbered at random(the labels are kept)
+     */
+    public static Graph<String, String> permuted(Graph<String, String> g, int[] permutation, Random random) {
+        int n = g.numVertices();
+        for (int i = 0; i < n; i++)
+            permutation[i] = i;
+        shuffle(permutation, random);
+
+        Graph<String, String> copy = GraphBuilder.numVertices(n).buildGraph();
+        for (int v : g.vertices())
+            copy.setVertexLabel(permutation[v], g.getVertexLabel(v));
+        for (Edge<String> e : g.edges())
+            copy.addEdge(permutation[e.source()], permutation[e.target()]);
+        return copy;
+    }
+
+    public static Graph<String, String> permuted(Graph<String, String> g, Random random) {
+        return permuted(g, new int[g.numVertices()], random);
+    }
+
+    /**
+     * A pattern that surely occurs in g: the subgraph induced by the first k vertices found by a BFS
+     * from a random vertex(fewer, if the component is smaller), renumbered from 0.
+     */
+    public static Graph<String, String> connectedPattern(Graph<String, String> g, int k, Random random) {
+        int n = g.numVertices();
+        int[] index = new int[n];               // the number of the vertex in the pattern, or -1
+        Arrays.fill(index, -1);
+        int[] chosen = new int[Math.min(k, n)];
+        int size = 0;
+
+        Deque<Integer> queue = new ArrayDeque<>();
+        int start = random.nextInt(n);
+        index[start] = size;
+        chosen[size++] = start;
+        queue.add(start);
+        while (!queue.isEmpty() && size < chosen.length) {
+            for (int w : g.neighbors(queue.poll())) {
+                if (index[w] == -1 && size < chosen.length) {
+                    index[w] = size;
+                    chosen[size++] = w;
+                    queue.add(w);
+                }
+            }
+        }
+
+        Graph<String, String> pattern = GraphBuilder.numVertices(size).buildGraph();
+        for (int i = 0; i < size; i++)
+            pattern.setVertexLabel(i, g.getVertexLabel(chosen[i]));
+        for (Edge<String> e : g.edges()) {
+            int u = index[e.source()], v = index[e.target()];
+            if (u != -1 && v != -1)
+                pattern.addEdge(u, v);
+        }
+        return pattern;
+    }
+
+    private static void shuffle(int[] values, Random random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int aux = values[i];
+            values[i] = values[j];
+            values[j] = aux;
+        }
+    }
+}
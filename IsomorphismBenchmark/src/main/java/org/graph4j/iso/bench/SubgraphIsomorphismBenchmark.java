@@ -0,0 +1,92 @@
+package org.graph4j.iso.bench;
+
+import org.graph4j.Graph;
+import org.graph4j.iso.IsomorphicGraphMapping;
+import org.graph4j.iso.general.AbstractGraphIsomorphism;
+import org.graph4j.iso.general.CacheMode;
+import org.graph4j.iso.general.MatchingSemantics;
+import org.graph4j.iso.general.SearchBudget;
+import org.graph4j.iso.general.SearchResult;
+import org.graph4j.iso.general.UllmanSubGraphIsomorphism;
+import org.graph4j.iso.general.VF2SubGraphIsomorphism;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Subgraph isomorphism of a connected pattern taken from a generated graph, for VF2 and Ullman.
+ *
+ * <p>
+ *     The pattern is the subgraph induced by a BFS ball of the target graph, so at least one mapping always exists.
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubgraphIsomorphismBenchmark {
+    // the number of occurrences grows very fast with the size of the target graph
+    public static final long MAX_STATES = 1_000_000;
+
+    public enum Algorithm {
+        VF2, ULLMAN
+    }
+
+    @Param({"VF2", "ULLMAN"})
+    public Algorithm algorithm;
+
+    @Param({"RANDOM", "REGULAR", "GRID", "TREE"})
+    public GraphFamilies.Family family;
+
+    @Param({"100", "400"})
+    public int n;
+
+    @Param({"6", "12"})
+    public int patternSize;
+
+    @Param({"INDUCED", "MONOMORPHISM"})
+    public MatchingSemantics semantics;
+
+    @Param({"false", "true"})
+    public boolean labelled;
+
+    @Param({"false", "true"})
+    public boolean cache;
+
+    private Graph<String, String> pattern, target;
+    private SearchBudget budget;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(n * 31L + family.ordinal());
+        target = GraphFamilies.generate(family, n, random);
+        if (labelled)
+            GraphFamilies.label(target, random);
+        pattern = GraphFamilies.connectedPattern(target, patternSize, random);
+        budget = SearchBudget.unlimited().withMaxStates(MAX_STATES);
+    }
+
+    private AbstractGraphIsomorphism newMatcher() {
+        CacheMode cacheMode = CacheMode.of(cache);
+        return switch (algorithm) {
+            case VF2 -> new VF2SubGraphIsomorphism(pattern, target, cacheMode, semantics);
+            case ULLMAN -> new UllmanSubGraphIsomorphism(pattern, target, cacheMode, semantics);
+        };
+    }
+
+    @Benchmark
+    public Optional<IsomorphicGraphMapping> getMapping() {
+        return newMatcher().getMapping();
+    }
+
+    @Benchmark
+    public SearchResult getAllMappings() {
+        return newMatcher().getAllMappings(budget);
+    }
+}
@@ -0,0 +1,63 @@
+package org.graph4j.iso.bench;
+
+import org.graph4j.Graph;
+import org.graph4j.iso.IsomorphicGraphMapping;
+import org.graph4j.iso.NotRootedTreeIsomorphism;
+import org.graph4j.iso.RootedTreeIsomorphism;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rooted and unrooted tree isomorphism between a random tree and a random renumbering of it.
+ *
+ * <p>
+ *     The tree algorithms keep their results in the instance, so a new instance is created on every invocation.
+ * </p>
+ *
+ * @author Ignat Gabriel-Andrei
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeIsomorphismBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int n;
+
+    private Graph<String, String> tree1, tree2;
+    private int root1, root2;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(n);
+        tree1 = GraphFamilies.randomTree(n, random);
+        int[] permutation = new int[n];
+        tree2 = GraphFamilies.permuted(tree1, permutation, random);
+        root1 = 0;
+        root2 = permutation[0];
+    }
+
+    @Benchmark
+    public boolean rootedAreIsomorphic() {
+        return new RootedTreeIsomorphism(tree1, tree2, root1, root2).areIsomorphic();
+    }
+
+    @Benchmark
+    public IsomorphicGraphMapping rootedGetMapping() {
+        return new RootedTreeIsomorphism(tree1, tree2, root1, root2).getMapping();
+    }
+
+    @Benchmark
+    public boolean notRootedAreIsomorphic() {
+        return new NotRootedTreeIsomorphism(tree1, tree2).areIsomorphic();
+    }
+
+    @Benchmark
+    public IsomorphicGraphMapping notRootedGetMapping() {
+        return new NotRootedTreeIsomorphism(tree1, tree2).getMapping();
+    }
+}
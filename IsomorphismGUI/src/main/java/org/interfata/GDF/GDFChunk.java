@@ -0,0 +1,68 @@
+package org.interfata.GDF;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The nodes and edges parsed from a part of a GDF file, in primitive arrays
+ *
+ * <p>
+ * Only what is needed to build the graph is kept: the vertex numbers, the weights and the labels.
+ * The labels are stored as positions in the dictionary of the chunk, so a repeated label is kept only once.
+ * </p>
+ *
+ * @see GDFLoader
+ */
+final class GDFChunk {
+    static final int NO_LABEL = -1;
+
+    int numNodes;
+    int[] names = new int[64];
+    int[] nodeLabels = new int[64];
+
+    int numEdges;
+    int[] node1 = new int[64];
+    int[] node2 = new int[64];
+    double[] weights = new double[64];    // NaN if the weight is missing
+    int[] edgeLabels = new int[64];
+
+    final List<String> labels = new ArrayList<>();
+    private final Map<String, Integer> labelIds = new HashMap<>();
+
+    void addNode(int name, String label) {
+        if (numNodes == names.length) {
+            names = Arrays.copyOf(names, 2 * numNodes);
+            nodeLabels = Arrays.copyOf(nodeLabels, 2 * numNodes);
+        }
+        names[numNodes] = name;
+        nodeLabels[numNodes] = labelId(label);
+        numNodes++;
+    }
+
+    void addEdge(int u, int v, double weight, String label) {
+        if (numEdges == node1.length) {
+            node1 = Arrays.copyOf(node1, 2 * numEdges);
+            node2 = Arrays.copyOf(node2, 2 * numEdges);
+            weights = Arrays.copyOf(weights, 2 * numEdges);
+            edgeLabels = Arrays.copyOf(edgeLabels, 2 * numEdges);
+        }
+        node1[numEdges] = u;
+        node2[numEdges] = v;
+        weights[numEdges] = weight;
+        edgeLabels[numEdges] = labelId(label);
+        numEdges++;
+    }
+
+    private int labelId(String label) {
+        if (label == null) {
+            return NO_LABEL;
+        }
+        return labelIds.computeIfAbsent(label, s -> {
+            labels.add(s);
+            return labels.size() - 1;
+        });
+    }
+}
@@ -0,0 +1,30 @@
+package org.interfata.GDF;
+
+import org.interfata.GDF.models.GDFEdge;
+import org.interfata.GDF.models.GDFGraph;
+import org.interfata.GDF.models.GDFNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A sink that collects the nodes and the edges into a GDFGraph
+ */
+public class GDFGraphCollector implements GDFSink {
+    private final List<GDFNode> nodes = new ArrayList<>();
+    private final List<GDFEdge> edges = new ArrayList<>();
+
+    @Override
+    public void node(GDFNode node) {
+        nodes.add(node);
+    }
+
+    @Override
+    public void edge(GDFEdge edge) {
+        edges.add(edge);
+    }
+
+    public GDFGraph toGraph() {
+        return new GDFGraph(nodes.toArray(new GDFNode[0]), edges.toArray(new GDFEdge[0]));
+    }
+}
@@ -0,0 +1,210 @@
+package org.interfata.GDF;
+
+import org.interfata.GDF.models.GDFEdge;
+import org.interfata.GDF.models.GDFNode;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * The compiled plan of a 'nodedef>' or 'edgedef>' line
+ *
+ * <p>
+ * The columns are resolved once, when the definition is read: the plan keeps, for every field position,
+ * the GDFNode/GDFEdge component it fills(or IGNORED for the other columns). A line is then decoded
+ * in a single walk over its fields, and the fields after the last used column are not even split.
+ * </p>
+ */
+final class GDFHeader {
+    // the columns used for nodes and edges, in the order of the GDFNode/GDFEdge components
+    private static final String[] NODE_COLUMNS = {"name", "label", "x", "y", "color", "width"};
+    private static final int NAME = 0, NODE_LABEL = 1, X = 2, Y = 3, NODE_COLOR = 4, WIDTH = 5;
+    private static final String[] EDGE_COLUMNS = {"node1", "node2", "weight", "label", "color"};
+    private static final int NODE1 = 0, NODE2 = 1, WEIGHT = 2, EDGE_LABEL = 3, EDGE_COLOR = 4;
+    private static final int IGNORED = -1;
+
+    private final boolean nodes;
+    private final int[] plan;
+
+    private GDFHeader(boolean nodes, int[] plan) {
+        this.nodes = nodes;
+        this.plan = plan;
+    }
+
+    /**
+     * @param definition the tokenized column definitions(e.g. `name INTEGER,label VARCHAR`)
+     * @param nodes true for a node definition, false for an edge definition
+     * @throws IllegalArgumentException if the definition has no name(nodes) or node1/node2(edges) column
+     */
+    static GDFHeader compile(GDFTokenizer definition, boolean nodes) {
+        String[] columns = nodes ? NODE_COLUMNS : EDGE_COLUMNS;
+        boolean[] found = new boolean[columns.length];
+
+        int[] plan = new int[definition.numFields()];
+        int numUsed = 0;
+        for (int field = 0; field < plan.length; field++) {
+            plan[field] = IGNORED;
+
+            // the name of the column is its first word, followed by the type
+            String name = definition.firstWord(field);
+            for (int k = 0; k < columns.length; k++) {
+                if (!found[k] && columns[k].equals(name)) {
+                    found[k] = true;
+                    plan[field] = k;
+                    numUsed = field + 1;
+                    break;
+                }
+            }
+        }
+
+        // the vertex numbers are required
+        int required = nodes ? 1 : 2;
+        for (int k = 0; k < required; k++) {
+            if (!found[k]) {
+                throw new IllegalArgumentException("The definition on line " + definition.lineNumber()
+                        + " has no " + columns[k] + " column");
+            }
+        }
+
+        return new GDFHeader(nodes, Arrays.copyOf(plan, numUsed));
+    }
+
+    boolean isNodeDefinition() {
+        return nodes;
+    }
+
+    /**
+     * @return the number of fields that must be split to decode a line
+     */
+    int numFields() {
+        return plan.length;
+    }
+
+    GDFNode decodeNode(GDFTokenizer fields) {
+        int name = 0;
+        boolean hasName = false;
+        String label = null;
+        Double x = null, y = null, width = null;
+        Color color = null;
+
+        int count = Math.min(plan.length, fields.numFields());
+        for (int field = 0; field < count; field++) {
+            if (plan[field] == IGNORED || fields.isEmpty(field)) {
+                continue;
+            }
+            switch (plan[field]) {
+                case NAME -> {
+                    name = fields.parseInt(field);
+                    hasName = true;
+                }
+                case NODE_LABEL -> label = fields.parseString(field);
+                case X -> x = fields.parseDouble(field);
+                case Y -> y = fields.parseDouble(field);
+                case NODE_COLOR -> color = fields.parseColor(field);
+                case WIDTH -> width = fields.parseDouble(field);
+            }
+        }
+
+        if (!hasName) {
+            throw new IllegalArgumentException("Line " + fields.lineNumber() + " has no " + NODE_COLUMNS[NAME]);
+        }
+        return new GDFNode(name, label, x, y, color, width);
+    }
+
+    GDFEdge decodeEdge(GDFTokenizer fields) {
+        int node1 = 0, node2 = 0;
+        boolean hasNode1 = false, hasNode2 = false;
+        Double weight = null;
+        String label = null;
+        Color color = null;
+
+        int count = Math.min(plan.length, fields.numFields());
+        for (int field = 0; field < count; field++) {
+            if (plan[field] == IGNORED || fields.isEmpty(field)) {
+                continue;
+            }
+            switch (plan[field]) {
+                case NODE1 -> {
+                    node1 = fields.parseInt(field);
+                    hasNode1 = true;
+                }
+                case NODE2 -> {
+                    node2 = fields.parseInt(field);
+                    hasNode2 = true;
+                }
+                case WEIGHT -> weight = fields.parseDouble(field);
+                case EDGE_LABEL -> label = fields.parseString(field);
+                case EDGE_COLOR -> color = fields.parseColor(field);
+            }
+        }
+
+        if (!hasNode1 || !hasNode2) {
+            throw new IllegalArgumentException("Line " + fields.lineNumber() + " has no "
+                    + EDGE_COLUMNS[hasNode1 ? NODE2 : NODE1]);
+        }
+        return new GDFEdge(node1, node2, weight, label, color);
+    }
+
+    /**
+     * Decodes a node line into the chunk, keeping only its name and label
+     */
+    void decodeNode(GDFTokenizer fields, GDFChunk chunk) {
+        int name = 0;
+        boolean hasName = false;
+        String label = null;
+
+        int count = Math.min(plan.length, fields.numFields());
+        for (int field = 0; field < count; field++) {
+            if (plan[field] == IGNORED || fields.isEmpty(field)) {
+                continue;
+            }
+            switch (plan[field]) {
+                case NAME -> {
+                    name = fields.parseInt(field);
+                    hasName = true;
+                }
+                case NODE_LABEL -> label = fields.parseString(field);
+            }
+        }
+
+        if (!hasName) {
+            throw new IllegalArgumentException("Line " + fields.lineNumber() + " has no " + NODE_COLUMNS[NAME]);
+        }
+        chunk.addNode(name, label);
+    }
+
+    /**
+     * Decodes an edge line into the chunk, keeping only its nodes, weight and label
+     */
+    void decodeEdge(GDFTokenizer fields, GDFChunk chunk) {
+        int node1 = 0, node2 = 0;
+        boolean hasNode1 = false, hasNode2 = false;
+        double weight = Double.NaN;
+        String label = null;
+
+        int count = Math.min(plan.length, fields.numFields());
+        for (int field = 0; field < count; field++) {
+            if (plan[field] == IGNORED || fields.isEmpty(field)) {
+                continue;
+            }
+            switch (plan[field]) {
+                case NODE1 -> {
+                    node1 = fields.parseInt(field);
+                    hasNode1 = true;
+                }
+                case NODE2 -> {
+                    node2 = fields.parseInt(field);
+                    hasNode2 = true;
+                }
+                case WEIGHT -> weight = fields.parseDouble(field);
+                case EDGE_LABEL -> label = fields.parseString(field);
+            }
+        }
+
+        if (!hasNode1 || !hasNode2) {
+            throw new IllegalArgumentException("Line " + fields.lineNumber() + " has no "
+                    + EDGE_COLUMNS[hasNode1 ? NODE2 : NODE1]);
+        }
+        chunk.addEdge(node1, node2, weight, label);
+    }
+}
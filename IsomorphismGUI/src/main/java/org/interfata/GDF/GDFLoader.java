@@ -0,0 +1,467 @@
+package org.interfata.GDF;
+
+import org.graph4j.Graph;
+import org.graph4j.GraphBuilder;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * This class loads a large GDF file into a graph4j graph, parsing it in parallel
+ *
+ * <p>
+ * The file is split into byte ranges, and every range owns the lines that start in it.
+ * A first parallel pass finds the 'nodedef>'/'edgedef>' lines and counts the lines of every range;
+ * the definitions are compiled into GDFHeaders. A second parallel pass parses the ranges, on a fork-join pool,
+ * into GDFChunks(primitive arrays of vertex numbers, weights and label positions). The chunks are then merged
+ * in the order of the file: the vertices are given to the builder at once, and the edges are added to the
+ * graph with its capacity already known.
+ * </p>
+ *
+ * <p>
+ * The result is the same as reading the file into a GraphSink: a node or an edge that already exists
+ * is ignored, and the positions, colors and widths are dropped.
+ * </p>
+ */
+public class GDFLoader {
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+    static final int MAX_CHUNK_SIZE = 1 << 28;    // a chunk is read into one byte array; a larger file has more chunks
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private static final byte[] NODE_DEFINITION = "nodedef>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EDGE_DEFINITION = "edgedef>".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Loads a GDF file on the common fork-join pool
+     * @param filePath the path of the file
+     */
+    public static Graph<String, String> load(String filePath) throws IOException {
+        return load(filePath, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Loads a GDF file
+     * @param filePath the path of the file
+     * @param pool the pool the chunks are parsed on
+     * @throws IllegalArgumentException if a definition has no name(nodes) or node1/node2(edges) column,
+     * a line is outside any definition, or an edge has a node that does not exist
+     * @throws NumberFormatException if a number or a color cannot be parsed
+     */
+    public static Graph<String, String> load(String filePath, ForkJoinPool pool) throws IOException {
+        if (pool == null) {
+            throw new NullPointerException("Pool cannot be null");
+        }
+        GDFParser.validateFile(filePath);
+
+        long size = Files.size(Paths.get(filePath));
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, size / (4L * pool.getParallelism()) + 1);
+        return load(filePath, pool, Math.min(chunkSize, MAX_CHUNK_SIZE));
+    }
+
+    /**
+     * Loads a GDF file, split into chunks of the given size(the tests use small chunks, so the lines
+     * and the definitions fall across the chunk boundaries)
+     * @param chunkSize the number of bytes of a chunk, at most MAX_CHUNK_SIZE
+     */
+    static Graph<String, String> load(String filePath, ForkJoinPool pool, long chunkSize) throws IOException {
+        if (pool == null) {
+            throw new NullPointerException("Pool cannot be null");
+        }
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + MAX_CHUNK_SIZE);
+        }
+        GDFParser.validateFile(filePath);
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            int numChunks = (int) ((size + chunkSize - 1) / chunkSize);
+
+            // the first pass: the definitions and the number of lines of every chunk
+            List<Callable<DefinitionFinder>> finders = new ArrayList<>();
+            for (int k = 0; k < numChunks; k++) {
+                long start = k * chunkSize, end = Math.min(size, start + chunkSize);
+                finders.add(() -> {
+                    DefinitionFinder finder = new DefinitionFinder();
+                    finder.numLines = scan(channel, start, end, finder);
+                    return finder;
+                });
+            }
+            List<DefinitionFinder> found = invokeAll(pool, finders);
+
+            int[] firstLines = new int[numChunks];
+            List<Integer> definitionLines = new ArrayList<>();
+            List<GDFHeader> headers = new ArrayList<>();
+            GDFTokenizer tokenizer = new GDFTokenizer();
+            int lineNumber = 1;
+            for (int k = 0; k < numChunks; k++) {
+                DefinitionFinder finder = found.get(k);
+                firstLines[k] = lineNumber;
+                for (int i = 0; i < finder.lines.size(); i++) {
+                    int line = lineNumber + finder.lines.get(i);
+                    String text = finder.texts.get(i);
+                    tokenizer.tokenize(text, NODE_DEFINITION.length, Integer.MAX_VALUE, line);
+                    definitionLines.add(line);
+                    headers.add(GDFHeader.compile(tokenizer, text.startsWith("nodedef>")));
+                }
+                lineNumber += finder.numLines;
+            }
+            int[] lines = definitionLines.stream().mapToInt(Integer::intValue).toArray();
+
+            // the second pass: the nodes and the edges
+            List<Callable<GDFChunk>> parsers = new ArrayList<>();
+            for (int k = 0; k < numChunks; k++) {
+                long start = k * chunkSize, end = Math.min(size, start + chunkSize);
+                int firstLine = firstLines[k];
+                parsers.add(() -> {
+                    ChunkParser parser = new ChunkParser(firstLine, lines, headers);
+                    scan(channel, start, end, parser);
+                    return parser.chunk;
+                });
+            }
+            return merge(invokeAll(pool, parsers));
+        }
+    }
+
+    /**
+     * Builds the graph from the chunks, in the order of the file
+     */
+    private static Graph<String, String> merge(List<GDFChunk> chunks) {
+        int numNodes = 0;
+        long numEdges = 0;
+        for (GDFChunk chunk : chunks) {
+            numNodes += chunk.numNodes;
+            numEdges += chunk.numEdges;
+        }
+
+        // the same label, from different chunks, is kept only once
+        Map<String, String> dictionary = new HashMap<>();
+        List<String[]> labels = new ArrayList<>();
+        for (GDFChunk chunk : chunks) {
+            String[] global = new String[chunk.labels.size()];
+            for (int i = 0; i < global.length; i++) {
+                global[i] = dictionary.computeIfAbsent(chunk.labels.get(i), s -> s);
+            }
+            labels.add(global);
+        }
+
+        // the vertices, in the order of their first occurrence
+        int[] vertices = new int[numNodes];
+        int pos = 0;
+        for (GDFChunk chunk : chunks) {
+            System.arraycopy(chunk.names, 0, vertices, pos, chunk.numNodes);
+            pos += chunk.numNodes;
+        }
+        boolean[] first = firstOccurrences(vertices);
+        int numVertices = 0;
+        for (int i = 0; i < numNodes; i++) {
+            if (first[i]) {
+                vertices[numVertices++] = vertices[i];
+            }
+        }
+
+        Graph<String, String> graph = GraphBuilder.vertices(Arrays.copyOf(vertices, numVertices))
+                .estimatedNumEdges(numEdges).buildGraph();
+
+        pos = 0;
+        for (int c = 0; c < chunks.size(); c++) {
+            GDFChunk chunk = chunks.get(c);
+            String[] global = labels.get(c);
+            for (int i = 0; i < chunk.numNodes; i++, pos++) {
+                if (first[pos] && chunk.nodeLabels[i] != GDFChunk.NO_LABEL) {
+                    graph.setVertexLabel(chunk.names[i], global[chunk.nodeLabels[i]]);
+                }
+            }
+        }
+
+        for (int c = 0; c < chunks.size(); c++) {
+            GDFChunk chunk = chunks.get(c);
+            String[] global = labels.get(c);
+            for (int i = 0; i < chunk.numEdges; i++) {
+                int u = chunk.node1[i];
+                int v = chunk.node2[i];
+                if (!graph.containsVertex(u) || !graph.containsVertex(v)) {
+                    throw new IllegalArgumentException("Edge has a node that does not exist");
+                }
+                if (graph.containsEdge(u, v)) {
+                    continue;
+                }
+
+                if (!Double.isNaN(chunk.weights[i])) {
+                    graph.addEdge(u, v, chunk.weights[i]);
+                } else {
+                    graph.addEdge(u, v);
+                }
+                if (chunk.edgeLabels[i] != GDFChunk.NO_LABEL) {
+                    graph.setEdgeLabel(u, v, global[chunk.edgeLabels[i]]);
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * @return for every position, true if its value did not appear before it
+     */
+    private static boolean[] firstOccurrences(int[] values) {
+        boolean[] first = new boolean[values.length];
+        Arrays.fill(first, true);
+
+        // usually all the values are distinct, which is checked without boxing them
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        boolean distinct = true;
+        for (int i = 1; i < sorted.length && distinct; i++) {
+            distinct = sorted[i] != sorted[i - 1];
+        }
+        if (distinct) {
+            return first;
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < values.length; i++) {
+            first[i] = seen.add(values[i]);
+        }
+        return first;
+    }
+
+    private static <T> List<T> invokeAll(ForkJoinPool pool, List<Callable<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        for (Future<T> future : pool.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Loading was interrupted");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException io) {
+                    throw io;
+                }
+                if (cause instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw new IOException(cause);
+            }
+        }
+        return results;
+    }
+
+    private interface LineVisitor {
+        /**
+         * @param bytes the bytes of the line are bytes[from..to), without the line terminator
+         * @param index the index of the line in the chunk
+         */
+        void visit(byte[] bytes, int from, int to, int index);
+    }
+
+    /**
+     * Visits the lines that start in [start, end)
+     * @return the number of lines
+     */
+    private static int scan(FileChannel channel, long start, long end, LineVisitor visitor) throws IOException {
+        Block block = new Block(channel, start == 0 ? 0 : start - 1, end);
+
+        // the line that starts before the chunk belongs to the previous chunk
+        int p = start == 0 ? 0 : block.indexOfNewline(0) + 1;
+        int count = 0;
+        while (block.base + p < end) {
+            int q = block.indexOfNewline(p);
+            int to = q > p && block.bytes[q - 1] == '\r' ? q - 1 : q;
+            visitor.visit(block.bytes, p, to, count++);
+            p = q + 1;
+        }
+        return count;
+    }
+
+    /**
+     * The bytes of the file from a position, read on demand
+     */
+    private static final class Block {
+        private final FileChannel channel;
+        private final long base;
+        private byte[] bytes;
+        private int length;
+
+        Block(FileChannel channel, long from, long to) throws IOException {
+            this.channel = channel;
+            this.base = from;
+            this.bytes = new byte[(int) (to - from)];
+            read(bytes.length);
+        }
+
+        /**
+         * @return the position of the first '\n' at or after the given position, or the length if there is none
+         */
+        int indexOfNewline(int from) throws IOException {
+            int i = from;
+            while (true) {
+                for (; i < length; i++) {
+                    if (bytes[i] == '\n') {
+                        return i;
+                    }
+                }
+                // the line continues after the bytes that were read
+                if (!read(BLOCK_SIZE)) {
+                    return length;
+                }
+            }
+        }
+
+        /**
+         * Reads at most count bytes after the ones that were read
+         * @return false if the end of the file was reached before reading any byte
+         */
+        private boolean read(int count) throws IOException {
+            if ((long) length + count > bytes.length) {
+                // the line that continues after the chunk must still fit in an array
+                long needed = (long) length + count;
+                if (needed > MAX_ARRAY_SIZE) {
+                    throw new IOException("A line is longer than " + MAX_ARRAY_SIZE + " bytes");
+                }
+                bytes = Arrays.copyOf(bytes, (int) Math.min(MAX_ARRAY_SIZE, Math.max(2L * bytes.length, needed)));
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, length, count);
+            int before = length;
+            while (buffer.hasRemaining()) {
+                int n = channel.read(buffer, base + buffer.position());
+                if (n < 0) {
+                    break;
+                }
+            }
+            length = buffer.position();
+            return length > before;
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, int from, int to, byte[] prefix) {
+        if (to - from < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[from + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDefinition(byte[] bytes, int from, int to) {
+        return startsWith(bytes, from, to, NODE_DEFINITION) || startsWith(bytes, from, to, EDGE_DEFINITION);
+    }
+
+    /**
+     * Collects the definition lines of a chunk
+     */
+    private static final class DefinitionFinder implements LineVisitor {
+        private final List<Integer> lines = new ArrayList<>();    // the indices in the chunk
+        private final List<String> texts = new ArrayList<>();
+        private int numLines;
+
+        @Override
+        public void visit(byte[] bytes, int from, int to, int index) {
+            if (isDefinition(bytes, from, to)) {
+                lines.add(index);
+                texts.add(new String(bytes, from, to - from, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Parses the nodes and the edges of a chunk
+     */
+    private static final class ChunkParser implements LineVisitor {
+        private final GDFChunk chunk = new GDFChunk();
+        private final GDFTokenizer tokenizer = new GDFTokenizer();
+        private char[] chars = new char[256];
+
+        private final int firstLine;
+        private final int[] definitionLines;
+        private final List<GDFHeader> headers;
+        private int nextDefinition;    // the first definition after the current line
+        private GDFHeader header;
+
+        ChunkParser(int firstLine, int[] definitionLines, List<GDFHeader> headers) {
+            this.firstLine = firstLine;
+            this.definitionLines = definitionLines;
+            this.headers = headers;
+
+            // the definition that is in effect at the beginning of the chunk
+            while (nextDefinition < definitionLines.length && definitionLines[nextDefinition] < firstLine) {
+                nextDefinition++;
+            }
+            header = nextDefinition > 0 ? headers.get(nextDefinition - 1) : null;
+        }
+
+        @Override
+        public void visit(byte[] bytes, int from, int to, int index) {
+            int lineNumber = firstLine + index;
+            if (nextDefinition < definitionLines.length && definitionLines[nextDefinition] == lineNumber) {
+                header = headers.get(nextDefinition++);
+                return;
+            }
+
+            if ((to > from && bytes[from] == '#') || isBlank(bytes, from, to)) {
+                return;
+            }
+
+            if (header == null) {
+                throw new IllegalArgumentException("Line " + lineNumber + " is outside a node or edge definition");
+            }
+
+            // ASCII lines are copied as they are, the others are decoded
+            boolean ascii = true;
+            for (int i = from; i < to && ascii; i++) {
+                ascii = bytes[i] >= 0;
+            }
+            if (ascii) {
+                int length = to - from;
+                if (length > chars.length) {
+                    chars = new char[Math.max(2 * chars.length, length)];
+                }
+                for (int i = 0; i < length; i++) {
+                    chars[i] = (char) bytes[from + i];
+                }
+                tokenizer.tokenize(chars, length, 0, header.numFields(), lineNumber);
+            } else {
+                String text = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+                tokenizer.tokenize(text, 0, header.numFields(), lineNumber);
+            }
+
+            if (header.isNodeDefinition()) {
+                header.decodeNode(tokenizer, chunk);
+            } else {
+                header.decodeEdge(tokenizer, chunk);
+            }
+        }
+
+        private static boolean isBlank(byte[] bytes, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (!Character.isWhitespace(bytes[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
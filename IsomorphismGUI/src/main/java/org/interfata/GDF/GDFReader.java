@@ -0,0 +1,215 @@
+package org.interfata.GDF;
+
+import org.interfata.GDF.models.GDFGraph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class reads a GDF file in a single pass and emits its nodes and edges to a GDFSink
+ *
+ * <p>
+ * Unlike GDFParser, the file is never held in memory: the characters are read into a fixed buffer,
+ * one line at a time, and the line is split by GDFTokenizer in place, so the only strings created
+ * are the labels, which are part of the output. Apart from the output, the memory used
+ * depends only on the length of the longest line.
+ * </p>
+ *
+ * <p>
+ * The format is the one read by GDFParser: lines starting with 'nodedef>' or 'edgedef>' define the columns
+ * (compiled into a GDFHeader), lines starting with '#' are comments, and the fields are split like in GDFTokenizer.
+ * </p>
+ */
+public class GDFReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final char[] NODE_DEFINITION = "nodedef>".toCharArray();
+    private static final char[] EDGE_DEFINITION = "edgedef>".toCharArray();
+
+    private final Reader in;
+    private final char[] buffer;
+    private int position, limit;
+
+    // the current line
+    private char[] line = new char[256];
+    private int length;
+    private int lineNumber;
+
+    private final GDFTokenizer tokenizer = new GDFTokenizer();
+
+    /**
+     * @param in the characters of the GDF file; they are read in blocks, so they don't need to be buffered
+     */
+    public GDFReader(Reader in) {
+        this(in, BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize the number of characters read at once(the tests use small buffers, so the lines
+     * fall across the buffer boundaries)
+     */
+    GDFReader(Reader in, int bufferSize) {
+        if (in == null) {
+            throw new NullPointerException("Reader cannot be null");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        this.in = in;
+        this.buffer = new char[bufferSize];
+    }
+
+    /**
+     * @param channel the bytes of the GDF file, in UTF-8
+     */
+    public GDFReader(ReadableByteChannel channel) {
+        this(Channels.newReader(channel, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a GDF file into a GDFGraph
+     * @param filePath the path of the file
+     */
+    public static GDFGraph read(String filePath) throws IOException {
+        GDFGraphCollector collector = new GDFGraphCollector();
+        read(filePath, collector);
+        return collector.toGraph();
+    }
+
+    /**
+     * Reads a GDF file and emits its nodes and edges to the sink
+     * @param filePath the path of the file
+     * @param sink the sink that receives the nodes and the edges
+     */
+    public static void read(String filePath, GDFSink sink) throws IOException {
+        GDFParser.validateFile(filePath);
+
+        try (GDFReader reader = new GDFReader(FileChannel.open(Paths.get(filePath), StandardOpenOption.READ))) {
+            reader.read(sink);
+        }
+    }
+
+    /**
+     * Reads the rest of the input and emits the nodes and edges to the sink
+     * @param sink the sink that receives the nodes and the edges
+     * @throws IllegalArgumentException if a definition has no name(nodes) or node1/node2(edges) column,
+     * or a line is outside any definition
+     * @throws NumberFormatException if a number or a color cannot be parsed
+     */
+    public void read(GDFSink sink) throws IOException {
+        if (sink == null) {
+            throw new NullPointerException("Sink cannot be null");
+        }
+
+        GDFHeader header = null;    // null before the first definition
+
+        while (nextLine()) {
+            if (startsWith(NODE_DEFINITION) || startsWith(EDGE_DEFINITION)) {
+                tokenizer.tokenize(line, length, NODE_DEFINITION.length, Integer.MAX_VALUE, lineNumber);
+                header = GDFHeader.compile(tokenizer, startsWith(NODE_DEFINITION));
+                continue;
+            }
+
+            if ((length > 0 && line[0] == '#') || isBlank()) {
+                continue;
+            }
+
+            if (header == null) {
+                throw new IllegalArgumentException("Line " + lineNumber + " is outside a node or edge definition");
+            }
+
+            tokenizer.tokenize(line, length, 0, header.numFields(), lineNumber);
+            if (header.isNodeDefinition()) {
+                sink.node(header.decodeNode(tokenizer));
+            } else {
+                sink.edge(header.decodeEdge(tokenizer));
+            }
+        }
+    }
+
+    /**
+     * Reads the next line into the line buffer, without the line terminator
+     * @return false if there are no more lines
+     */
+    private boolean nextLine() throws IOException {
+        length = 0;
+        boolean read = false;
+
+        while (true) {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    break;
+                }
+            }
+            read = true;
+
+            // copy up to the end of the line or of the buffer
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            append(start, position);
+
+            if (position < limit) {
+                position++;    // skip '\n'
+                break;
+            }
+        }
+
+        if (!read) {
+            return false;
+        }
+
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        lineNumber++;
+        return true;
+    }
+
+    private void append(int from, int to) {
+        int count = to - from;
+        if (length + count > line.length) {
+            line = Arrays.copyOf(line, Math.max(2 * line.length, length + count));
+        }
+        System.arraycopy(buffer, from, line, length, count);
+        length += count;
+    }
+
+    private boolean startsWith(char[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (line[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isBlank() {
+        for (int i = 0; i < length; i++) {
+            if (!Character.isWhitespace(line[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
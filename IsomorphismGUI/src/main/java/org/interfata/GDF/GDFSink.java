@@ -0,0 +1,15 @@
+package org.interfata.GDF;
+
+import org.interfata.GDF.models.GDFEdge;
+import org.interfata.GDF.models.GDFNode;
+
+/**
+ * Receives the nodes and the edges of a GDF file, in the order they appear in the file
+ *
+ * @see GDFReader
+ */
+public interface GDFSink {
+    void node(GDFNode node);
+
+    void edge(GDFEdge edge);
+}
@@ -0,0 +1,256 @@
+package org.interfata.GDF;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Splits a GDF line into fields in a single pass, and parses the fields in place
+ *
+ * <p>
+ * The fields are separated by commas and trimmed. A field surrounded by single/double quotes may contain commas
+ * (e.g. the color '255,0,0'); it ends at the first matching quote followed by a comma or by the end of the line,
+ * so `1,"Hello, "world"",1` has the fields 1, Hello, "world" and 1. A field is kept only as its position
+ * in the line, so the numbers and the colors are parsed without creating strings.
+ * </p>
+ */
+final class GDFTokenizer {
+    // the powers of 10 that are exact doubles
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private char[] line;
+    private char[] copy = new char[256];    // the buffer of the lines given as strings
+    private int length;
+    private int lineNumber;
+
+    // the fields: [starts[i], ends[i]), without the quotes
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] quoted = new boolean[16];
+    private int numFields;
+
+    /**
+     * Splits a line given as a string, which is copied in a reused buffer
+     * @see #tokenize(char[], int, int, int, int)
+     */
+    void tokenize(String text, int from, int maxFields, int lineNumber) {
+        if (text.length() > copy.length) {
+            copy = new char[Math.max(2 * copy.length, text.length())];
+        }
+        text.getChars(0, text.length(), copy, 0);
+        line = copy;
+        split(text.length(), from, maxFields, lineNumber);
+    }
+
+    /**
+     * Splits a line, which is used directly until the next call
+     * @param text the characters of the line
+     * @param length the length of the line
+     * @param from the position where the first field starts
+     * @param maxFields the fields after the first maxFields are not split
+     * @param lineNumber the number of the line, for the error messages
+     */
+    void tokenize(char[] text, int length, int from, int maxFields, int lineNumber) {
+        line = text;
+        split(length, from, maxFields, lineNumber);
+    }
+
+    private void split(int length, int from, int maxFields, int lineNumber) {
+        this.length = length;
+        this.lineNumber = lineNumber;
+        numFields = 0;
+        int i = from;
+
+        while (numFields < maxFields) {
+            while (i < length && line[i] != ',' && Character.isWhitespace(line[i])) {
+                i++;
+            }
+
+            int start, end;
+            boolean isQuoted = i < length && (line[i] == '\'' || line[i] == '"');
+            if (isQuoted) {
+                char quote = line[i];
+                start = i + 1;
+                end = -1;
+
+                // the closing quote is followed by a comma or by the end of the line(spaces are allowed in between)
+                for (int j = start; j < length && end == -1; j++) {
+                    if (line[j] == quote) {
+                        int k = j + 1;
+                        while (k < length && line[k] != ',' && Character.isWhitespace(line[k])) {
+                            k++;
+                        }
+                        if (k == length || line[k] == ',') {
+                            end = j;
+                            i = k;
+                        }
+                    }
+                }
+
+                if (end == -1) {
+                    // unterminated, the field is the rest of the line
+                    end = length;
+                    i = length;
+                }
+            } else {
+                start = i;
+                while (i < length && line[i] != ',') {
+                    i++;
+                }
+                end = i;
+                while (end > start && Character.isWhitespace(line[end - 1])) {
+                    end--;
+                }
+            }
+
+            addField(start, end, isQuoted);
+
+            if (i >= length) {
+                break;
+            }
+            i++;    // skip ','
+        }
+    }
+
+    private void addField(int start, int end, boolean isQuoted) {
+        if (numFields == starts.length) {
+            starts = Arrays.copyOf(starts, 2 * numFields);
+            ends = Arrays.copyOf(ends, 2 * numFields);
+            quoted = Arrays.copyOf(quoted, 2 * numFields);
+        }
+        starts[numFields] = start;
+        ends[numFields] = end;
+        quoted[numFields] = isQuoted;
+        numFields++;
+    }
+
+    int numFields() {
+        return numFields;
+    }
+
+    int lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return true if the field is empty and not quoted
+     */
+    boolean isEmpty(int field) {
+        return starts[field] == ends[field] && !quoted[field];
+    }
+
+    /**
+     * @return the first word of the field(e.g. "name" for the column definition "name INTEGER")
+     */
+    String firstWord(int field) {
+        int end = starts[field];
+        while (end < ends[field] && !Character.isWhitespace(line[end])) {
+            end++;
+        }
+        return new String(line, starts[field], end - starts[field]);
+    }
+
+    int parseInt(int field) {
+        int start = starts[field], end = ends[field];
+        int i = start;
+        boolean negative = i < end && line[i] == '-';
+        if (negative || (i < end && line[i] == '+')) {
+            i++;
+        }
+
+        // at most 9 digits cannot overflow, longer numbers are left to Integer.parseInt
+        if (end - i > 0 && end - i <= 9) {
+            int value = 0;
+            for (; i < end; i++) {
+                int digit = line[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                value = 10 * value + digit;
+            }
+            if (i == end) {
+                return negative ? -value : value;
+            }
+        }
+        return Integer.parseInt(new String(line, start, end - start));
+    }
+
+    double parseDouble(int field) {
+        int start = starts[field], end = ends[field];
+        int i = start;
+        boolean negative = i < end && line[i] == '-';
+        if (negative || (i < end && line[i] == '+')) {
+            i++;
+        }
+
+        // plain decimals with at most 15 digits: the mantissa and the power of 10 are exact,
+        // so their quotient is correctly rounded, like in Double.parseDouble
+        long mantissa = 0;
+        int digits = 0, fractionDigits = 0;
+        boolean point = false;
+        for (; i < end; i++) {
+            char c = line[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = 10 * mantissa + (c - '0');
+                digits++;
+                if (point) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+
+        if (i == end && digits > 0 && digits <= 15) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+
+        // exponents, NaN, Infinity etc.
+        return Double.parseDouble(new String(line, start, end - start));
+    }
+
+    String parseString(int field) {
+        return new String(line, starts[field], ends[field] - starts[field]);
+    }
+
+    /**
+     * Parses a color given as 3 numbers separated by commas(RGB), each clamped to [0, 255]
+     */
+    Color parseColor(int field) {
+        int[] rgb = new int[3];
+        int i = starts[field], end = ends[field];
+        for (int k = 0; k < 3; k++) {
+            while (i < end && Character.isWhitespace(line[i])) {
+                i++;
+            }
+
+            boolean negative = i < end && line[i] == '-';
+            if (negative) {
+                i++;
+            }
+            int digits = 0;
+            long value = 0;
+            while (i < end && line[i] >= '0' && line[i] <= '9') {
+                value = Math.min(10 * value + (line[i] - '0'), Integer.MAX_VALUE);
+                i++;
+                digits++;
+            }
+            while (i < end && Character.isWhitespace(line[i])) {
+                i++;
+            }
+
+            boolean separated = k < 2 ? i < end && line[i++] == ',' : i == end;
+            if (digits == 0 || !separated) {
+                throw new NumberFormatException("Invalid color on line " + lineNumber + ": " + parseString(field));
+            }
+            rgb[k] = negative ? 0 : (int) Math.min(255, value);
+        }
+
+        return new Color(rgb[0], rgb[1], rgb[2]);
+    }
+}
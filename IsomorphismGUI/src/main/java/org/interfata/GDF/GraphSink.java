@@ -0,0 +1,71 @@
+package org.interfata.GDF;
+
+import org.graph4j.Graph;
+import org.graph4j.GraphBuilder;
+import org.interfata.GDF.models.GDFEdge;
+import org.interfata.GDF.models.GDFNode;
+
+/**
+ * A sink that adds the nodes and the edges straight into a graph4j graph,
+ * without keeping the GDF records
+ *
+ * <p>
+ * Like in the canvas, a node or an edge that already exists is ignored,
+ * and the positions, colors and widths are dropped.
+ * </p>
+ */
+public class GraphSink implements GDFSink {
+    private final Graph<String, String> graph;
+
+    public GraphSink() {
+        this(GraphBuilder.empty().buildGraph());
+    }
+
+    /**
+     * @param graph the graph the nodes and the edges are added to
+     */
+    public GraphSink(Graph<String, String> graph) {
+        if (graph == null) {
+            throw new NullPointerException("Graph cannot be null");
+        }
+        this.graph = graph;
+    }
+
+    @Override
+    public void node(GDFNode node) {
+        int v = node.name();
+        if (graph.containsVertex(v)) {
+            return;
+        }
+
+        graph.addVertex(v);
+        if (node.label() != null) {
+            graph.setVertexLabel(v, node.label());
+        }
+    }
+
+    @Override
+    public void edge(GDFEdge edge) {
+        int u = edge.node1();
+        int v = edge.node2();
+        if (!graph.containsVertex(u) || !graph.containsVertex(v)) {
+            throw new IllegalArgumentException("Edge has a node that does not exist");
+        }
+        if (graph.containsEdge(u, v)) {
+            return;
+        }
+
+        if (edge.weight() != null) {
+            graph.addEdge(u, v, edge.weight());
+        } else {
+            graph.addEdge(u, v);
+        }
+        if (edge.label() != null) {
+            graph.setEdgeLabel(u, v, edge.label());
+        }
+    }
+
+    public Graph<String, String> getGraph() {
+        return graph;
+    }
+}
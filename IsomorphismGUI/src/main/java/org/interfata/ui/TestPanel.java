@@ -2,6 +2,8 @@ package org.interfata.ui;
 
 import org.graph4j.Graph;
 import org.graph4j.iso.IsomorphicGraphMapping;
+import org.graph4j.iso.general.SearchBudget;
+import org.graph4j.iso.general.SearchResult;
 import org.graph4j.iso.general.VF2SubGraphIsomorphism;
 import org.interfata.ui.models.VertexModel;
 import org.interfata.ui.models.Point;
@@ -14,6 +16,7 @@ import java.awt.event.ActionEvent;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.Optional;
@@ -26,6 +29,9 @@ import java.util.Optional;
  *     - the mapping between the two graphs
  */
 public class TestPanel extends JPanel {
+    // hard instances(e.g. strongly regular graphs) could block the interface for a very long time
+    private static final Duration TEST_TIME_LIMIT = Duration.ofSeconds(10);
+
     final MainFrame frame;
     final GraphPanel graphPanel1;
     final GraphPanel graphPanel2;
@@ -193,8 +199,9 @@ public class TestPanel extends JPanel {
         var vf2 = new VF2SubGraphIsomorphism(graph1, graph2);
 
         long startTime = System.currentTimeMillis();
-        Optional<IsomorphicGraphMapping> mapping = vf2.getMapping();
+        SearchResult result = vf2.getMapping(SearchBudget.unlimited().withTimeLimit(TEST_TIME_LIMIT));
         long timeTaken = System.currentTimeMillis() - startTime;
+        Optional<IsomorphicGraphMapping> mapping = result.getMappings().stream().findFirst();
         boolean isIsomorphic = mapping.isPresent();
 
         System.out.println("Isomorphic: " + isIsomorphic);
@@ -232,6 +239,12 @@ public class TestPanel extends JPanel {
 
             displayTestResult(msg, Color.GREEN);
             displayMapping();
+        } else if (result.isBudgetExhausted()) {
+            String msg = "<html> <h3> The test was stopped, no mapping was found. </h3> <br> Time limit: " +
+                    TEST_TIME_LIMIT.toSeconds() + " s </html>";
+
+            displayTestResult(msg, Color.ORANGE);
+            removeMapping();
         } else {
             String msg = "<html> <h3> The 2 graphs are not isomorphic. </h3> <br> Time taken: " + timeTaken + " ms </html>";
 
@@ -5,7 +5,7 @@ import org.graph4j.EdgeIterator;
 import org.graph4j.Graph;
 import org.graph4j.GraphBuilder;
 import org.interfata.GDF.GDFFormatter;
-import org.interfata.GDF.GDFParser;
+import org.interfata.GDF.GDFReader;
 import org.interfata.GDF.models.GDFEdge;
 import org.interfata.GDF.models.GDFGraph;
 import org.interfata.GDF.models.GDFNode;
@@ -210,7 +210,7 @@ public class GraphModel {
     public String loadGraph(String filePath) {
         GDFGraph gdfGraph;
         try {
-            gdfGraph = GDFParser.parse(filePath);
+            gdfGraph = GDFReader.read(filePath);
         } catch (IOException e) {
             return e.getMessage();
         }
@@ -0,0 +1,148 @@
+package org.interfata.GDF;
+
+import org.graph4j.Edge;
+import org.graph4j.Graph;
+import org.interfata.GDF.models.GDFEdge;
+import org.interfata.GDF.models.GDFGraph;
+import org.interfata.GDF.models.GDFNode;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that GDFParser, GDFReader and GDFLoader read the same nodes and edges from a file with several
+ * node and edge sections, CRLF line endings and quoted fields with commas, when the lines and the definitions
+ * fall across the boundaries of the reader buffer and of the loader chunks
+ */
+class GDFLoaderTest {
+    private static final String CONTENT = String.join("",
+            "nodedef>name INTEGER,label VARCHAR,x DOUBLE,color VARCHAR\r\n",
+            "1,'first, node',1.5,'255,0,0'\r\n",
+            "2,plain,2\n",
+            "# a comment, in the middle of a section\r\n",
+            "3,\"third, \"quoted\"\",3,'0,0,255'\r\n",
+            "\r\n",
+            "edgedef>node1 INTEGER,node2 INTEGER,weight DOUBLE,label VARCHAR\n",
+            "1,2,0.5,'edge, one'\r\n",
+            "2,3,,two\n",
+            "nodedef>name INTEGER,x DOUBLE,label VARCHAR\r\n",
+            "4,1.0,'late, node'\r\n",
+            "5,2.0,\n",
+            "2,9.0,'duplicate node'\r\n",
+            "edgedef>node2 INTEGER,node1 INTEGER,label VARCHAR,weight DOUBLE\r\n",
+            "4,3,'reversed, columns',2.5\n",
+            "1,5,,\r\n",
+            "2,1,'duplicate edge',7\r\n",
+            "5,4,last");
+
+    private static final int[] SIZES = {1, 2, 3, 5, 8, 13, 64, 1 << 20};
+
+    @TempDir
+    static Path directory;
+    private static Path file;
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void writeFile() throws IOException {
+        file = directory.resolve("sections.gdf");
+        Files.writeString(file, CONTENT, StandardCharsets.UTF_8);
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void readerMatchesParser() throws IOException {
+        GDFGraph parsed = GDFParser.parse(file.toString());
+        assertEquals(6, parsed.nodes().length);
+        assertEquals(6, parsed.edges().length);
+        assertEquals("first, node", parsed.nodes()[0].label());
+        assertEquals("third, \"quoted\"", parsed.nodes()[2].label());
+        assertEquals(new GDFEdge(3, 4, 2.5, "reversed, columns", null), parsed.edges()[2]);
+
+        for (int size : SIZES) {
+            GDFGraphCollector collector = new GDFGraphCollector();
+            try (GDFReader reader = new GDFReader(new StringReader(CONTENT), size)) {
+                reader.read(collector);
+            }
+            GDFGraph read = collector.toGraph();
+            assertArrayEquals(parsed.nodes(), read.nodes(), "buffer size " + size);
+            assertArrayEquals(parsed.edges(), read.edges(), "buffer size " + size);
+        }
+    }
+
+    @Test
+    void loaderMatchesParserAndReader() throws IOException {
+        List<String> expected = describe(toGraph(GDFParser.parse(file.toString())));
+        assertFalse(expected.isEmpty());
+
+        GraphSink sink = new GraphSink();
+        try (GDFReader reader = new GDFReader(new StringReader(CONTENT), 3)) {
+            reader.read(sink);
+        }
+        assertEquals(expected, describe(sink.getGraph()));
+
+        for (int size : SIZES) {
+            Graph<String, String> loaded = GDFLoader.load(file.toString(), pool, size);
+            assertEquals(expected, describe(loaded), "chunk size " + size);
+        }
+        assertEquals(expected, describe(GDFLoader.load(file.toString(), pool)));
+    }
+
+    @Test
+    void loaderRejectsChunksLargerThanAnArray() {
+        assertThrows(IllegalArgumentException.class,
+                () -> GDFLoader.load(file.toString(), pool, GDFLoader.MAX_CHUNK_SIZE + 1L));
+        assertThrows(IllegalArgumentException.class, () -> GDFLoader.load(file.toString(), pool, 0));
+    }
+
+    private static Graph<String, String> toGraph(GDFGraph gdf) {
+        GraphSink sink = new GraphSink();
+        for (GDFNode node : gdf.nodes()) {
+            sink.node(node);
+        }
+        for (GDFEdge edge : gdf.edges()) {
+            sink.edge(edge);
+        }
+        return sink.getGraph();
+    }
+
+    /**
+     * @return the vertices in their order, with their labels, then the edges with their weights and labels
+     */
+    private static List<String> describe(Graph<String, String> graph) {
+        List<String> lines = new ArrayList<>();
+        for (int v : graph.vertices()) {
+            lines.add(v + " " + graph.getVertexLabel(v));
+        }
+
+        List<String> edges = new ArrayList<>();
+        for (Edge<String> e : graph.edges()) {
+            int u = Math.min(e.source(), e.target()), v = Math.max(e.source(), e.target());
+            edges.add(u + "-" + v + " " + e.weight() + " " + e.label());
+        }
+        String[] sorted = edges.toArray(new String[0]);
+        Arrays.sort(sorted);
+        lines.addAll(Arrays.asList(sorted));
+        return lines;
+    }
+}